@@ -7,22 +7,41 @@
        */
 
 package data_structures;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 @SuppressWarnings("unchecked")
 public class OrderedArrayPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
-    private int currentSize, maxSize;
+    private int currentSize, maxSize, initialCapacity;
     private E[] storage;
 
  public OrderedArrayPriorityQueue() {
     this(DEFAULT_MAX_CAPACITY);
     }
 
+ // Fixed size PQ, insert returns false once max objects are stored
  public OrderedArrayPriorityQueue(int max) {
+    this(max, max);
+    }
+
+ // Growable PQ, storage starts with initialCapacity slots and doubles
+ // when full, up to max objects. Once it drains to a quarter full it
+ // halves again, but never below initialCapacity.
+ public OrderedArrayPriorityQueue(int initialCapacity, int max) {
+    if(initialCapacity < 0 || max < initialCapacity)
+        throw new IllegalArgumentException("Illegal capacity " + initialCapacity + ", max " + max);
     currentSize = 0;
     maxSize = max;
-    storage = (E[]) new Comparable [maxSize];
+    this.initialCapacity = initialCapacity;
+    storage = (E[]) new Comparable [initialCapacity];
     }
 
  // Inserts a new object into the priority queue. Returns true if
@@ -31,24 +50,116 @@ public class OrderedArrayPriorityQueue<E extends Comparable<E>> implements Prior
  public boolean insert(E object) {
      if(isFull()) 
         return false;
+    if(currentSize == storage.length)
+        resize(grownCapacity(storage.length, maxSize));
     //find the correct index using recursive method
     int insert = findInsertionPoint(object,0,currentSize-1);
     //shift the elements to the left to make space for new insert
-    for(int i = currentSize-1; i >= insert; i--) {
-        storage[i+1] = storage[i];
-     }
+    System.arraycopy(storage, insert, storage, insert+1, currentSize-insert);
     storage[insert] = object;
     currentSize++;
     return true;
     }
 
+ // Inserts every object in iteration order, as if by repeated calls to
+ // insert(). Returns false and inserts nothing if they do not all fit.
+ public boolean insertAll(Collection<? extends E> objects) {
+    E[] items = (E[]) objects.toArray(new Comparable[0]);
+    int needed = currentSize + items.length;
+    if(needed > maxSize)
+        return false;
+    if(needed > storage.length)
+        resize(Math.max(needed, grownCapacity(storage.length, maxSize)));
+    //one stable sort puts the new objects in ascending order, equal ones
+    //keeping their iteration order
+    Arrays.sort(items);
+    //merge from the back of storage, where the highest priority belongs,
+    //taking the stored object on ties since it was inserted first
+    int i = currentSize - 1;
+    int k = needed - 1;
+    for(int j = 0; j < items.length; j++, k--) {
+        while(i >= 0 && ((Comparable<E>)storage[i]).compareTo(items[j]) <= 0)
+            storage[k--] = storage[i--];
+        storage[k] = items[j];
+    }
+    currentSize = needed;
+    return true;
+    }
+
+ public boolean insertAll(E[] objects) {
+    return insertAll(Arrays.asList(objects));
+    }
+
+ // Moves every object in other into this PQ and leaves other empty.
+ // Returns false and moves nothing if the objects do not all fit.
+ // Another OrderedArrayPriorityQueue is merged in from the back in
+ // O(n + m), any other queue is drained. Either way the melded objects
+ // go behind equal ones already here, in the order they had in other.
+ public boolean meld(PriorityQueue<E> other) {
+    if(other == this)
+        throw new IllegalArgumentException("Cannot meld a queue into itself");
+    int needed = currentSize + other.size();
+    if(needed > maxSize)
+        return false;
+    if(!(other instanceof OrderedArrayPriorityQueue)) {
+        List<E> drained = new ArrayList<E>(other.size());
+        while(!other.isEmpty())
+            drained.add(other.remove());
+        return insertAll(drained);
+    }
+    OrderedArrayPriorityQueue<E> o = (OrderedArrayPriorityQueue<E>) other;
+    if(needed > storage.length)
+        resize(Math.max(needed, grownCapacity(storage.length, maxSize)));
+    //both arrays end with their highest priority, so fill from the back
+    //with whichever end comes out first, this PQ's on ties
+    int i = currentSize - 1;
+    int j = o.currentSize - 1;
+    for(int k = needed - 1; j >= 0; k--) {
+        if(i >= 0 && ((Comparable<E>)storage[i]).compareTo(o.storage[j]) <= 0)
+            storage[k] = storage[i--];
+        else
+            storage[k] = o.storage[j--];
+    }
+    currentSize = needed;
+    o.clear();
+    return true;
+    }
+
  // Removes the object of highest priority that has been in the
  // PQ the longest, and returns it. Returns null if the PQ is empty.
  public E remove() {
      if(isEmpty())
         return null;    
     //return and remove the last element (AKA the highest priority) in the queue 
-    return storage[--currentSize];
+    E remove = storage[--currentSize];
+    storage[currentSize] = null;
+    shrinkIfSparse();
+    return remove;
+    }
+
+ // Removes up to max objects in the order remove() would return them
+ // and adds them to c. Returns the number of objects moved.
+ public int drainTo(Collection<? super E> c, int max) {
+    int n = Math.min(Math.max(max, 0), currentSize);
+    if(n == 0)
+        return 0;
+    //the n highest priorities sit together at the end of the array, so
+    //copy that slice out in one go and hand it over highest first
+    int from = currentSize - n;
+    List<E> slice = Arrays.asList(Arrays.copyOfRange(storage, from, currentSize));
+    Collections.reverse(slice);
+    c.addAll(slice);
+    Arrays.fill(storage, from, currentSize, null);
+    currentSize = from;
+    shrinkIfSparse();
+    return n;
+    }
+
+ // Removes up to k objects and returns them in priority order
+ public List<E> removeMany(int k) {
+    List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+    drainTo(removed, k);
+    return removed;
     }
 
  // Deletes all instances of the parameter obj from the PQ if found, and
@@ -72,6 +183,8 @@ public class OrderedArrayPriorityQueue<E extends Comparable<E>> implements Prior
       }
     //reduce the current size subtracted by the number of matches 
     currentSize = currentSize - count;
+    Arrays.fill(storage, currentSize, currentSize + count, null);
+    shrinkIfSparse();
     return true;
     }
 
@@ -108,7 +221,10 @@ public class OrderedArrayPriorityQueue<E extends Comparable<E>> implements Prior
  public int size() { return currentSize; }
 
  // Returns the PQ to an empty state.
- public void clear() { currentSize = 0; }
+ public void clear() {
+    currentSize = 0;
+    storage = (E[]) new Comparable [initialCapacity];
+    }
 
  // Returns true if the PQ is empty, otherwise false
  public boolean isEmpty() { return currentSize == 0; }
@@ -133,6 +249,52 @@ public class OrderedArrayPriorityQueue<E extends Comparable<E>> implements Prior
      };
   }
 
+ // Writes the capacities and the sorted array to out. Array order is
+ // what keeps equal objects in insertion order.
+ public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+    Snapshot.Writer writer = new Snapshot.Writer(out, OrderedArrayPriorityQueue.class);
+    writer.writeInt(initialCapacity);
+    writer.writeInt(maxSize);
+    writer.writeInt(currentSize);
+    for(int i = 0; i < currentSize; i++)
+        writer.write(serializer, storage[i]);
+    writer.finish();
+    }
+
+ // Reads a PQ written by writeSnapshot() straight back into its array,
+ // already sorted, in O(n). Throws IOException if in does not hold one.
+ public static <E extends Comparable<E>> OrderedArrayPriorityQueue<E> readSnapshot(
+        ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+    Snapshot.Reader reader = new Snapshot.Reader(in, OrderedArrayPriorityQueue.class);
+    int initialCapacity = reader.readCount();
+    int max = reader.readCount();
+    int size = reader.readCount();
+    if(max < initialCapacity || size > max)
+        throw new IOException("Corrupt snapshot, size " + size + " of max " + max);
+    OrderedArrayPriorityQueue<E> pq = new OrderedArrayPriorityQueue<E>(initialCapacity, max);
+    pq.resize(Math.max(initialCapacity, size));
+    for(int i = 0; i < size; i++)
+        pq.storage[i] = reader.read(serializer);
+    pq.currentSize = size;
+    return pq;
+    }
+
+ // Doubles a full array's capacity without passing max
+ private static int grownCapacity(int capacity, int max) {
+    return (int) Math.min(max, Math.max(1L, 2L * capacity));
+    }
+
+ // Halves the storage once it is a quarter full, the gap between the grow
+ // and shrink points keeps a queue hovering at one size from resizing
+ private void shrinkIfSparse() {
+    if(storage.length > initialCapacity && currentSize <= storage.length >> 2)
+        resize(Math.max(initialCapacity, storage.length >> 1));
+    }
+
+ private void resize(int capacity) {
+    storage = Arrays.copyOf(storage, capacity);
+    }
+
  /* Recursive search for correct location to insert new data into array using
  binary search tree, if priority compared is greater or equal to 
  then return the midpoint modified +1 (shift right) or -1 (shift left)*/
@@ -0,0 +1,322 @@
+      /**
+       *  TieredArrayPriorityQueue
+       *  Implement a FIFO Priority Queue that keeps its items sorted like
+       *  OrderedArrayPriorityQueue, but split into chunks of about sqrt(max)
+       *  slots. Each chunk is a circular buffer, so an insert only shifts
+       *  the rest of its own chunk and then passes one item down to the
+       *  front of each later chunk, O(sqrt n) moves instead of O(n).
+       *  October 17th, 2026
+       *  @author  agent
+       */
+
+package data_structures;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class TieredArrayPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    private static final int MIN_CHUNK_SIZE = 16;
+    private int currentSize, maxSize;
+    // chunk size is a power of two, so a position splits into its chunk
+    // and offset with a shift and a mask
+    private final int shift, mask;
+    // every chunk but the last is full, the items run from highest to
+    // lowest index like storage in OrderedArrayPriorityQueue, so the
+    // highest priority is always at the end of the last chunk
+    private E[][] chunks;
+    // slot holding each chunk's first item
+    private int[] heads;
+    private int chunkCount;
+
+ public TieredArrayPriorityQueue() {
+    this(DEFAULT_MAX_CAPACITY);
+    }
+
+ // insert returns false once max objects are stored. Chunks are
+ // allocated as the PQ fills and dropped again as it drains.
+ public TieredArrayPriorityQueue(int max) {
+    if(max < 0)
+        throw new IllegalArgumentException("Illegal capacity " + max);
+    int chunkSize = MIN_CHUNK_SIZE;
+    while((long) chunkSize * chunkSize < max)
+        chunkSize <<= 1;
+    shift = Integer.numberOfTrailingZeros(chunkSize);
+    mask = chunkSize - 1;
+    currentSize = 0;
+    maxSize = max;
+    chunks = (E[][]) new Comparable[4][];
+    heads = new int[4];
+    chunkCount = 0;
+    }
+
+ // Inserts a new object into the priority queue. Returns true if
+ // the insertion is successful. If the PQ is full, the insertion
+ // is aborted, and the method returns false.
+ public boolean insert(E object) {
+    if(isFull())
+        return false;
+    if(currentSize == chunkCount << shift)
+        addChunk();
+    int position = findInsertionPoint(object);
+    int chunk = position >> shift;
+    //make room in the target chunk by passing the last item of each
+    //chunk from there on to the front of the next one
+    for(int j = (currentSize >> shift); j > chunk; j--) {
+        E[] from = chunks[j-1];
+        int last = (heads[j-1] + mask) & mask;
+        heads[j] = (heads[j] - 1) & mask;
+        chunks[j][heads[j]] = from[last];
+        from[last] = null;
+    }
+    int used = chunk == currentSize >> shift ? currentSize & mask : mask;
+    int offset = position & mask;
+    shiftUp(chunks[chunk], (heads[chunk] + offset) & mask, used - offset);
+    chunks[chunk][(heads[chunk] + offset) & mask] = object;
+    currentSize++;
+    return true;
+    }
+
+ // Inserts every object in iteration order, as if by repeated calls to
+ // insert(). Returns false and inserts nothing if they do not all fit.
+ public boolean insertAll(Collection<? extends E> objects) {
+    E[] items = (E[]) objects.toArray(new Comparable[0]);
+    int needed = currentSize + items.length;
+    if(needed > maxSize)
+        return false;
+    if(items.length == 0)
+        return true;
+    //one stable sort puts the new objects in ascending order, then merge
+    //them into a flat copy from the back and cut it back into chunks
+    Arrays.sort(items);
+    E[] merged = (E[]) new Comparable[needed];
+    int i = currentSize - 1;
+    int k = needed - 1;
+    for(int j = 0; j < items.length; j++, k--) {
+        while(i >= 0 && get(i).compareTo(items[j]) <= 0)
+            merged[k--] = get(i--);
+        merged[k] = items[j];
+    }
+    for(; i >= 0; i--)
+        merged[k--] = get(i);
+    load(merged, needed);
+    return true;
+    }
+
+ public boolean insertAll(E[] objects) {
+    return insertAll(Arrays.asList(objects));
+    }
+
+ // Removes the object of highest priority that has been in the
+ // PQ the longest, and returns it. Returns null if the PQ is empty.
+ public E remove() {
+    if(isEmpty())
+        return null;
+    //the highest priority is the last item of the last chunk
+    int chunk = --currentSize >> shift;
+    int slot = (heads[chunk] + (currentSize & mask)) & mask;
+    E remove = chunks[chunk][slot];
+    chunks[chunk][slot] = null;
+    dropSpareChunks();
+    return remove;
+    }
+
+ // Removes up to max objects in the order remove() would return them
+ // and adds them to c. Returns the number of objects moved.
+ public int drainTo(Collection<? super E> c, int max) {
+    int n = Math.min(Math.max(max, 0), currentSize);
+    for(int i = 0; i < n; i++) {
+        int chunk = --currentSize >> shift;
+        int slot = (heads[chunk] + (currentSize & mask)) & mask;
+        c.add(chunks[chunk][slot]);
+        chunks[chunk][slot] = null;
+    }
+    dropSpareChunks();
+    return n;
+    }
+
+ // Removes up to k objects and returns them in priority order
+ public List<E> removeMany(int k) {
+    List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+    drainTo(removed, k);
+    return removed;
+    }
+
+ // Deletes all instances of the parameter obj from the PQ if found, and
+ // returns true. Returns false if no match to the parameter obj is found.
+ public boolean delete(E obj) {
+    if(!contains(obj))
+        return false;
+    E[] kept = (E[]) new Comparable[currentSize];
+    int count = 0;
+    for(int i = 0; i < currentSize; i++) {
+        E item = get(i);
+        if(item.compareTo(obj) != 0)
+            kept[count++] = item;
+    }
+    load(kept, count);
+    return true;
+    }
+
+ // Returns the object of highest priority that has been in the
+ // PQ the longest, but does NOT remove it.
+ // Returns null if the PQ is empty.
+ public E peek() {
+    if(isEmpty())
+        return null;
+    return get(currentSize-1);
+    }
+
+ // Returns true if the priority queue contains the specified element
+ // false otherwise.
+ public boolean contains(E obj) {
+    int lo = 0;
+    int hi = currentSize - 1;
+    while(lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        int cmp = get(mid).compareTo(obj);
+        if(cmp < 0)
+            hi = mid - 1;
+        else if(cmp > 0)
+            lo = mid + 1;
+        else
+            return true;
+    }
+    return false;
+    }
+
+ // Returns the number of objects currently in the PQ.
+ public int size() { return currentSize; }
+
+ // Returns the PQ to an empty state.
+ public void clear() {
+    currentSize = 0;
+    chunks = (E[][]) new Comparable[4][];
+    heads = new int[4];
+    chunkCount = 0;
+    }
+
+ // Returns true if the PQ is empty, otherwise false
+ public boolean isEmpty() { return currentSize == 0; }
+
+ // Returns true if the PQ is full, otherwise false. List based
+ // implementations should always return false.
+ public boolean isFull() { return currentSize == maxSize; }
+
+ // Returns an iterator of the objects in the PQ, in no particular
+ // order.
+ public Iterator<E> iterator() {
+    return new Iterator<E>() {
+    private int counter = 0;
+
+    public boolean hasNext() { return counter < currentSize; }
+
+    public E next() {
+        if(!hasNext())
+            throw new NoSuchElementException();
+        return get(counter++);
+        }
+     };
+  }
+
+ // Writes max and the objects in sorted order to out, lowest priority
+ // first. Equal objects sit in the order they come out, so their position
+ // is all FIFO order needs.
+ public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+    Snapshot.Writer writer = new Snapshot.Writer(out, TieredArrayPriorityQueue.class);
+    writer.writeInt(maxSize);
+    writer.writeInt(currentSize);
+    for(int i = 0; i < currentSize; i++)
+        writer.write(serializer, get(i));
+    writer.finish();
+    }
+
+ // Reads a PQ written by writeSnapshot() straight into fresh chunks,
+ // already sorted, in O(n). Throws IOException if in does not hold one.
+ public static <E extends Comparable<E>> TieredArrayPriorityQueue<E> readSnapshot(
+        ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+    Snapshot.Reader reader = new Snapshot.Reader(in, TieredArrayPriorityQueue.class);
+    int max = reader.readCount();
+    int size = reader.readCount();
+    if(size > max)
+        throw new IOException("Corrupt snapshot, size " + size + " of max " + max);
+    TieredArrayPriorityQueue<E> pq = new TieredArrayPriorityQueue<E>(max);
+    for(int i = 0; i < size; i++) {
+        if((i & pq.mask) == 0)
+            pq.addChunk();
+        pq.chunks[pq.chunkCount-1][i & pq.mask] = reader.read(serializer);
+    }
+    pq.currentSize = size;
+    return pq;
+    }
+
+ // Returns the item at position i, counting from the lowest priority
+ private E get(int i) {
+    int chunk = i >> shift;
+    return chunks[chunk][(heads[chunk] + (i & mask)) & mask];
+    }
+
+ // Iterative binary search for the first position whose item is no
+ // higher priority than object. Equal items already queued stay after it,
+ // closer to the end, so they come out first.
+ private int findInsertionPoint(E object) {
+    int lo = 0;
+    int hi = currentSize;
+    while(lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if(object.compareTo(get(mid)) >= 0)
+            hi = mid;
+        else
+            lo = mid + 1;
+    }
+    return lo;
+    }
+
+ // Moves the len items starting at slot from of a circular chunk up one
+ // slot, wrapping the last slot round to the first
+ private void shiftUp(E[] chunk, int from, int len) {
+    int wrapped = from + len - chunk.length;
+    if(wrapped < 0) {
+        System.arraycopy(chunk, from, chunk, from + 1, len);
+        return;
+    }
+    System.arraycopy(chunk, 0, chunk, 1, wrapped);
+    chunk[0] = chunk[chunk.length - 1];
+    System.arraycopy(chunk, from, chunk, from + 1, chunk.length - 1 - from);
+    }
+
+ private void addChunk() {
+    if(chunkCount == chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunkCount << 1);
+        heads = Arrays.copyOf(heads, chunkCount << 1);
+    }
+    if(chunks[chunkCount] == null)
+        chunks[chunkCount] = (E[]) new Comparable[mask + 1];
+    heads[chunkCount++] = 0;
+    }
+
+ // Keeps one empty chunk past the last used one so a queue hovering at a
+ // chunk boundary does not allocate on every insert
+ private void dropSpareChunks() {
+    int used = (currentSize + mask) >> shift;
+    while(chunkCount > used + 1)
+        chunks[--chunkCount] = null;
+    }
+
+ // Cuts the first n items of a flat array, lowest priority first, into
+ // fresh chunks
+ private void load(E[] items, int n) {
+    clear();
+    for(int i = 0; i < n; i += mask + 1) {
+        addChunk();
+        System.arraycopy(items, i, chunks[chunkCount-1], 0, Math.min(mask + 1, n - i));
+    }
+    currentSize = n;
+    }
+}
@@ -7,22 +7,41 @@
        */
 
 package data_structures;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
 
 @SuppressWarnings("unchecked")
 public class UnorderedArrayPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
-    private int currentSize, maxSize;
+    private int currentSize, maxSize, initialCapacity;
     private E[] storage;
 
 public UnorderedArrayPriorityQueue() {
     this(DEFAULT_MAX_CAPACITY);
     }
 
+// Fixed size PQ, insert returns false once max objects are stored
 public UnorderedArrayPriorityQueue(int max) {
+    this(max, max);
+    }
+
+// Growable PQ, storage starts with initialCapacity slots and doubles
+// when full, up to max objects. Once it drains to a quarter full it
+// halves again, but never below initialCapacity.
+public UnorderedArrayPriorityQueue(int initialCapacity, int max) {
+    if(initialCapacity < 0 || max < initialCapacity)
+        throw new IllegalArgumentException("Illegal capacity " + initialCapacity + ", max " + max);
     currentSize = 0;
     maxSize = max;
-    storage = (E[]) new Comparable [maxSize];
+    this.initialCapacity = initialCapacity;
+    storage = (E[]) new Comparable [initialCapacity];
     }
 
  // Inserts a new object into the priority queue. Returns true if
@@ -31,6 +50,8 @@ public UnorderedArrayPriorityQueue(int max) {
  public boolean insert(E object) {
      if(isFull()) 
         return false;
+    if(currentSize == storage.length)
+        storage = Arrays.copyOf(storage, grownCapacity(storage.length, maxSize));
     //insert element first and increase size of the queue
     storage[currentSize++] = object;
     return true;
@@ -56,10 +77,53 @@ public UnorderedArrayPriorityQueue(int max) {
     for(int i = highestIndex; i < currentSize-1; i++) {
         storage[i] = storage[i+1];
      }
-    currentSize--;
+    storage[--currentSize] = null;
+    shrinkIfSparse();
     return remove;
     }
 
+ // Removes up to max objects in the order remove() would return them
+ // and adds them to c. Returns the number of objects moved.
+ public int drainTo(Collection<? super E> c, int max) {
+    int n = Math.min(Math.max(max, 0), currentSize);
+    if(n == 0)
+        return 0;
+    //one quickselect finds the nth highest priority instead of n full scans
+    E[] copy = Arrays.copyOf(storage, currentSize);
+    E pivot = select(copy, n-1);
+    int less = 0;
+    for(int i = 0; i < currentSize; i++)
+        if(((Comparable<E>)copy[i]).compareTo(pivot) < 0)
+            less++;
+    //objects equal to the pivot are taken oldest first, storage is in
+    //insertion order so those are the first ones met
+    int equalsToTake = n - less;
+    E[] taken = (E[]) new Comparable [n];
+    int t = 0;
+    int kept = 0;
+    for(int i = 0; i < currentSize; i++) {
+        int cmp = ((Comparable<E>)storage[i]).compareTo(pivot);
+        if(cmp < 0 || (cmp == 0 && equalsToTake-- > 0))
+            taken[t++] = storage[i];
+        else
+            storage[kept++] = storage[i];
+     }
+    //the sort is stable, so equal objects stay in insertion order
+    Arrays.sort(taken);
+    c.addAll(Arrays.asList(taken));
+    Arrays.fill(storage, kept, currentSize, null);
+    currentSize = kept;
+    shrinkIfSparse();
+    return n;
+    }
+
+ // Removes up to k objects and returns them in priority order
+ public List<E> removeMany(int k) {
+    List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+    drainTo(removed, k);
+    return removed;
+    }
+
  // Deletes all instances of the parameter obj from the PQ if found, and
  // returns true. Returns false if no match to the parameter obj is found.
 public boolean delete(E obj) {
@@ -81,6 +145,8 @@ public boolean delete(E obj) {
      }
     //reduce the current size subtracted by the number of matches 
     currentSize = currentSize - count;
+    Arrays.fill(storage, currentSize, currentSize + count, null);
+    shrinkIfSparse();
     return true;
     }
     
@@ -114,7 +180,10 @@ public boolean delete(E obj) {
  public int size() { return currentSize; }
 
  // Returns the PQ to an empty state.
- public void clear() { currentSize = 0; }
+ public void clear() {
+    currentSize = 0;
+    storage = (E[]) new Comparable [initialCapacity];
+    }
 
  // Returns true if the PQ is empty, otherwise false
  public boolean isEmpty() { return currentSize == 0; }
@@ -138,4 +207,79 @@ public boolean delete(E obj) {
         }
     };
   }
+ // Writes the capacities and the objects in array order to out. The
+ // array is in insertion order, so that is all FIFO order needs.
+ public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+    Snapshot.Writer writer = new Snapshot.Writer(out, UnorderedArrayPriorityQueue.class);
+    writer.writeInt(initialCapacity);
+    writer.writeInt(maxSize);
+    writer.writeInt(currentSize);
+    for(int i = 0; i < currentSize; i++)
+        writer.write(serializer, storage[i]);
+    writer.finish();
+    }
+
+ // Reads a PQ written by writeSnapshot() straight back into its array,
+ // in O(n). Throws IOException if in does not hold one.
+ public static <E extends Comparable<E>> UnorderedArrayPriorityQueue<E> readSnapshot(
+        ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+    Snapshot.Reader reader = new Snapshot.Reader(in, UnorderedArrayPriorityQueue.class);
+    int initialCapacity = reader.readCount();
+    int max = reader.readCount();
+    int size = reader.readCount();
+    if(max < initialCapacity || size > max)
+        throw new IOException("Corrupt snapshot, size " + size + " of max " + max);
+    UnorderedArrayPriorityQueue<E> pq = new UnorderedArrayPriorityQueue<E>(initialCapacity, max);
+    pq.storage = (E[]) new Comparable [Math.max(initialCapacity, size)];
+    for(int i = 0; i < size; i++)
+        pq.storage[i] = reader.read(serializer);
+    pq.currentSize = size;
+    return pq;
+    }
+
+ // Doubles a full array's capacity without passing max
+ private static int grownCapacity(int capacity, int max) {
+    return (int) Math.min(max, Math.max(1L, 2L * capacity));
+    }
+
+ // Halves the storage once it is a quarter full, the gap between the grow
+ // and shrink points keeps a queue hovering at one size from resizing
+ private void shrinkIfSparse() {
+    if(storage.length > initialCapacity && currentSize <= storage.length >> 2)
+        storage = Arrays.copyOf(storage, Math.max(initialCapacity, storage.length >> 1));
+    }
+
+ // Quickselect with a three way partition so runs of equal priorities
+ // don't degrade it, returns the kth smallest object and reorders a
+ private static <T extends Comparable<T>> T select(T[] a, int k) {
+    int lo = 0;
+    int hi = a.length - 1;
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while(lo < hi) {
+        T pivot = a[lo + random.nextInt(hi - lo + 1)];
+        int lt = lo, i = lo, gt = hi;
+        while(i <= gt) {
+            int cmp = a[i].compareTo(pivot);
+            if(cmp < 0)
+                swap(a, lt++, i++);
+            else if(cmp > 0)
+                swap(a, i, gt--);
+            else
+                i++;
+        }
+        if(k < lt)
+            hi = lt - 1;
+        else if(k > gt)
+            lo = gt + 1;
+        else
+            return pivot;
+    }
+    return a[k];
+    }
+
+ private static void swap(Object[] a, int i, int j) {
+    Object tmp = a[i];
+    a[i] = a[j];
+    a[j] = tmp;
+    }
 }
\ No newline at end of file
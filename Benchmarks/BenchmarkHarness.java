@@ -0,0 +1,196 @@
+/**
+ *  BenchmarkHarness
+ *  Shared timing, key generation and reporting helpers for the
+ *  PriorityQueue and DictionaryADT benchmark drivers
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+public class BenchmarkHarness {
+    public static final int[] DEFAULT_SIZES = { 1_000, 10_000, 100_000, 1_000_000, 10_000_000 };
+    public static final String[] DISTRIBUTIONS = { "random", "sorted", "reversed", "duplicates" };
+    // upper bound on the number of per-operation latency samples kept for p99
+    private static final int MAX_SAMPLES = 1 << 17;
+
+    // A single timed operation, i is the index of the operation in the run
+    public interface Op {
+        void run(int i);
+    }
+
+    int[] sizes = DEFAULT_SIZES;
+    String[] distributions = DISTRIBUTIONS;
+    String[] only = null;
+    int warmups = 2;
+    // linear time structures are skipped above this size so a run finishes
+    int quadraticLimit = 100_000;
+    // caps the number of point queries (peek, get...) per run
+    int queryLimit = 1_000_000;
+    // caps the number of operations that scan the whole structure (contains, delete)
+    int scanLimit = 1_000;
+    long seed = 42;
+    boolean csv = false;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public BenchmarkHarness(String[] args) {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-csv"))
+                csv = true;
+            else if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + arg);
+            else if (arg.equals("-sizes"))
+                sizes = parseSizes(args[++i]);
+            else if (arg.equals("-dists"))
+                distributions = args[++i].split(",");
+            else if (arg.equals("-only"))
+                only = args[++i].split(",");
+            else if (arg.equals("-warmups"))
+                warmups = Integer.parseInt(args[++i]);
+            else if (arg.equals("-quadraticLimit"))
+                quadraticLimit = (int) Double.parseDouble(args[++i]);
+            else if (arg.equals("-queryLimit"))
+                queryLimit = (int) Double.parseDouble(args[++i]);
+            else if (arg.equals("-scanLimit"))
+                scanLimit = (int) Double.parseDouble(args[++i]);
+            else if (arg.equals("-seed"))
+                seed = Long.parseLong(args[++i]);
+            else
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+    // Returns true if the named structure was selected with -only
+    public boolean selected(String name) {
+        if (only == null)
+            return true;
+        for (String s : only)
+            if (s.equalsIgnoreCase(name))
+                return true;
+        return false;
+    }
+
+    // Generates n keys in the requested distribution. Duplicate heavy
+    // keys draw from roughly n/100 distinct values.
+    public int[] keys(String distribution, int n) {
+        Random random = new Random(seed ^ n);
+        int[] keys = new int[n];
+        if (distribution.equals("random")) {
+            for (int i = 0; i < n; i++)
+                keys[i] = random.nextInt();
+            }
+        else if (distribution.equals("sorted")) {
+            for (int i = 0; i < n; i++)
+                keys[i] = i;
+            }
+        else if (distribution.equals("reversed")) {
+            for (int i = 0; i < n; i++)
+                keys[i] = n - i;
+            }
+        else if (distribution.equals("duplicates")) {
+            int distinct = Math.max(1, n / 100);
+            for (int i = 0; i < n; i++)
+                keys[i] = random.nextInt(distinct);
+            }
+        else
+            throw new IllegalArgumentException("Unknown distribution " + distribution);
+        return keys;
+    }
+
+    // Boxes the keys once up front so boxing is not charged to the structure
+    public Integer[] boxed(int[] keys) {
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            boxed[i] = keys[i];
+        return boxed;
+    }
+
+    // Runs ops operations, timing the whole loop for throughput and every
+    // stride-th operation individually for the latency percentile.
+    // Allocation is read from the current thread's allocation counter.
+    public Result measure(String structure, String op, String distribution, int size, int ops, Op body) {
+        int stride = Math.max(1, ops / MAX_SAMPLES);
+        long[] samples = new long[(ops + stride - 1) / stride];
+        int sampled = 0;
+        long tid = Thread.currentThread().getId();
+        // the sample array is allocated before the counter is read so it is not charged
+        long bytesBefore = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            if (i % stride == 0) {
+                long t = System.nanoTime();
+                body.run(i);
+                samples[sampled++] = System.nanoTime() - t;
+                }
+            else
+                body.run(i);
+            }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(tid) - bytesBefore;
+        Arrays.sort(samples, 0, sampled);
+        long p99 = sampled == 0 ? 0 : samples[Math.min(sampled - 1, (int) Math.ceil(sampled * 0.99) - 1)];
+        return new Result(structure, op, distribution, size, ops, elapsed, p99, bytes);
+    }
+
+    public void printHeader() {
+        if (csv)
+            System.out.println("structure,op,distribution,size,ops,ops_per_sec,p99_ns,bytes_per_op");
+        else
+            System.out.printf("%-34s %-10s %-11s %10s %14s %10s %12s%n",
+                    "structure", "op", "dist", "size", "ops/s", "p99 ns", "B/op");
+    }
+
+    public void print(Result r) {
+        if (csv)
+            System.out.printf("%s,%s,%s,%d,%d,%.1f,%d,%.1f%n", r.structure, r.op, r.distribution,
+                    r.size, r.ops, r.opsPerSecond(), r.p99Nanos, r.bytesPerOp());
+        else
+            System.out.printf("%-34s %-10s %-11s %10d %14.0f %10d %12.1f%n", r.structure, r.op,
+                    r.distribution, r.size, r.opsPerSecond(), r.p99Nanos, r.bytesPerOp());
+    }
+
+    public void skipped(String structure, String distribution, int size, String reason) {
+        if (csv)
+            System.out.printf("%s,skipped,%s,%d,0,0,0,0%n", structure, distribution, size);
+        else
+            System.out.printf("%-34s %-10s %-11s %10d   skipped: %s%n", structure, "-", distribution, size, reason);
+    }
+
+    private static int[] parseSizes(String list) {
+        String[] parts = list.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            sizes[i] = (int) Double.parseDouble(parts[i]);
+        return sizes;
+    }
+
+    public static class Result {
+        final String structure, op, distribution;
+        final int size, ops;
+        final long nanos, p99Nanos, bytes;
+
+        public Result(String structure, String op, String distribution, int size, int ops,
+                long nanos, long p99Nanos, long bytes) {
+            this.structure = structure;
+            this.op = op;
+            this.distribution = distribution;
+            this.size = size;
+            this.ops = ops;
+            this.nanos = nanos;
+            this.p99Nanos = p99Nanos;
+            this.bytes = bytes;
+        }
+
+        public double opsPerSecond() {
+            return nanos == 0 ? 0 : ops * 1e9 / nanos;
+        }
+
+        public double bytesPerOp() {
+            return ops == 0 ? 0 : (double) bytes / ops;
+        }
+    }
+}
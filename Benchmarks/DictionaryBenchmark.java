@@ -0,0 +1,137 @@
+/**
+ *  DictionaryBenchmark
+ *  Measure put, get, delete and keys() for every DictionaryADT
+ *  implementation across sizes and key distributions
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+import data_structures.AVLTreeDictionary;
+import data_structures.BalancedTreeDictionary;
+import data_structures.BinarySearchTree;
+import data_structures.ConcurrentHashtable;
+import data_structures.DictionaryADT;
+import data_structures.Hashtable;
+import data_structures.MappedHashtable;
+import data_structures.OpenAddressingHashtable;
+import data_structures.Serializer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class DictionaryBenchmark {
+
+    // Creates an empty dictionary sized for the expected number of entries
+    interface Factory {
+        DictionaryADT<Integer, Integer> create(int expected);
+    }
+
+    static class Structure {
+        final String name;
+        // true if the structure can go linear on ordered input and must be size limited
+        final boolean linear;
+        final Factory factory;
+
+        Structure(String name, boolean linear, Factory factory) {
+            this.name = name;
+            this.linear = linear;
+            this.factory = factory;
+        }
+    }
+
+    static List<Structure> structures() {
+        List<Structure> list = new ArrayList<Structure>();
+        list.add(new Structure("Hashtable", false,
+                expected -> new Hashtable<Integer, Integer>(expected)));
+        list.add(new Structure("OpenAddressingHashtable", false,
+                expected -> new OpenAddressingHashtable<Integer, Integer>()));
+        list.add(new Structure("ConcurrentHashtable", false,
+                expected -> new ConcurrentHashtable<Integer, Integer>()));
+        list.add(new Structure("MappedHashtable", false, DictionaryBenchmark::mapped));
+        list.add(new Structure("BinarySearchTree", true,
+                expected -> new BinarySearchTree<Integer, Integer>()));
+        list.add(new Structure("BalancedTreeDictionary", false,
+                expected -> new BalancedTreeDictionary<Integer, Integer>()));
+        list.add(new Structure("AVLTreeDictionary", false,
+                expected -> new AVLTreeDictionary<Integer, Integer>()));
+        return list;
+    }
+
+    // A table in a fresh temporary file, deleted when the JVM exits
+    static DictionaryADT<Integer, Integer> mapped(int expected) {
+        try {
+            Path file = Files.createTempFile("MappedHashtable", ".tbl");
+            file.toFile().deleteOnExit();
+            return new MappedHashtable<Integer, Integer>(file, expected, Serializer.INTEGER, Serializer.INTEGER);
+            }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+            }
+    }
+
+    public static void main(String[] args) {
+        BenchmarkHarness harness = new BenchmarkHarness(args);
+        harness.printHeader();
+        for (int size : harness.sizes)
+            for (String distribution : harness.distributions) {
+                Integer[] keys = harness.boxed(harness.keys(distribution, size));
+                for (Structure s : structures()) {
+                    if (!harness.selected(s.name))
+                        continue;
+                    if (s.linear && size > harness.quadraticLimit && !distribution.equals("random")) {
+                        harness.skipped(s.name, distribution, size, "above -quadraticLimit");
+                        continue;
+                        }
+                    try {
+                        for (int w = 0; w < harness.warmups; w++)
+                            run(harness, s, distribution, keys, false);
+                        run(harness, s, distribution, keys, true);
+                        }
+                    catch (StackOverflowError e) {
+                        harness.skipped(s.name, distribution, size, "StackOverflowError");
+                        }
+                    }
+                }
+    }
+
+    // One pass over a fresh dictionary: fill it, look every key up, walk
+    // the keys once in order, then delete every key
+    @SuppressWarnings("unchecked")
+    private static void run(BenchmarkHarness harness, Structure s, String distribution,
+            Integer[] keys, boolean report) {
+        int size = keys.length;
+        DictionaryADT<Integer, Integer> dictionary = s.factory.create(size);
+        List<BenchmarkHarness.Result> results = new ArrayList<BenchmarkHarness.Result>();
+        results.add(harness.measure(s.name, "put", distribution, size, size,
+                i -> dictionary.put(keys[i], keys[i])));
+        results.add(harness.measure(s.name, "get", distribution, size,
+                Math.min(size, harness.queryLimit), i -> dictionary.get(keys[i])));
+        Iterator<Integer>[] iter = new Iterator[1];
+        results.add(harness.measure(s.name, "keys", distribution, size, dictionary.size() + 1, i -> {
+            if (i == 0)
+                iter[0] = dictionary.keys();
+            else
+                iter[0].next();
+            }));
+        results.add(harness.measure(s.name, "delete", distribution, size, size,
+                i -> dictionary.delete(keys[i])));
+        // file backed tables let go of their file before the next pass
+        if (dictionary instanceof Closeable)
+            try {
+                ((Closeable) dictionary).close();
+                }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+                }
+        if (report)
+            for (BenchmarkHarness.Result r : results)
+                harness.print(r);
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ *  MappedHashtableContract
+ *  Check MappedHashtable against a TreeMap reference across random
+ *  operations and reopens, and check its file locking between JVMs
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+import data_structures.MappedHashtable;
+import data_structures.Serializer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class MappedHashtableContract {
+    // exit status of a reader JVM that could not open the table
+    static final int REFUSED = 2;
+
+    public static void main(String[] args) throws Exception {
+        // a reader JVM started by checkLocks
+        if (args.length == 3 && args[0].equals("-reader")) {
+            System.exit(reader(Paths.get(args[1]), Long.parseLong(args[2])));
+            }
+        int seeds = 100;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-seeds") && i + 1 < args.length)
+                seeds = Integer.parseInt(args[++i]);
+            else
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        Path dir = Files.createTempDirectory("mapped-contract");
+        try {
+            checkAgainstTreeMap(dir.resolve("fuzz.tbl"), seeds);
+            System.out.println("TreeMap reference: OK (" + seeds + " seeds)");
+            checkReopen(dir.resolve("reopen.tbl"));
+            System.out.println("reopen: OK");
+            checkLocks(dir.resolve("locks.tbl"));
+            System.out.println("locks between JVMs: OK");
+            }
+        catch (IllegalStateException e) {
+            System.out.println("FAILED: " + e.getMessage());
+            System.exit(1);
+            }
+        finally {
+            for (Path p : Files.newDirectoryStream(dir))
+                Files.delete(p);
+            Files.delete(dir);
+            }
+    }
+
+    // Runs random puts, deletes and gets against a TreeMap, closing and
+    // reopening the file every 1500 operations, and compares size on every
+    // step and the sorted keys, values and getKey now and then
+    private static void checkAgainstTreeMap(Path file, int seeds) throws IOException {
+        for (int seed = 0; seed < seeds; seed++) {
+            Random random = new Random(seed);
+            Files.deleteIfExists(file);
+            MappedHashtable<Integer, Integer> table = new MappedHashtable<Integer, Integer>(file, 3000,
+                    Serializer.INTEGER, Serializer.INTEGER);
+            TreeMap<Integer, Integer> reference = new TreeMap<Integer, Integer>();
+            int range = 1 + random.nextInt(2000);
+            for (int op = 0; op < 5000; op++) {
+                int key = random.nextInt(range) - range / 2;
+                int choice = random.nextInt(10);
+                String where = "seed " + seed + " op " + op;
+                if (choice < 5) {
+                    boolean added = !reference.containsKey(key);
+                    if (added)
+                        reference.put(key, key * 3);
+                    check(table.put(key, key * 3) == added, "put " + key + " at " + where);
+                    }
+                else if (choice < 8)
+                    check(table.delete(key) == (reference.remove(key) != null), "delete " + key + " at " + where);
+                else
+                    check(Objects.equals(table.get(key), reference.get(key)), "get " + key + " at " + where);
+                if (op % 1500 == 0) {
+                    table.close();
+                    // an existing file keeps its capacity, whatever n is given
+                    table = new MappedHashtable<Integer, Integer>(file, 1, Serializer.INTEGER, Serializer.INTEGER);
+                    }
+                check(table.size() == reference.size(), "size at " + where);
+                if (op % 997 == 0)
+                    checkContents(table, reference, where);
+                }
+            table.close();
+            MappedHashtable<Integer, Integer> readOnly = new MappedHashtable<Integer, Integer>(file,
+                    Serializer.INTEGER, Serializer.INTEGER);
+            checkContents(readOnly, reference, "seed " + seed + " read only");
+            readOnly.close();
+            }
+    }
+
+    // Compares the keys and values in sorted order, and getKey of the
+    // smallest key's value
+    private static void checkContents(MappedHashtable<Integer, Integer> table,
+            TreeMap<Integer, Integer> reference, String where) {
+        Iterator<Integer> keys = table.keys(), values = table.values();
+        for (Map.Entry<Integer, Integer> entry : reference.entrySet()) {
+            check(keys.hasNext() && entry.getKey().equals(keys.next()), "keys() at " + where);
+            check(values.hasNext() && entry.getValue().equals(values.next()), "values() at " + where);
+            }
+        check(!keys.hasNext() && !values.hasNext(), "extra entries at " + where);
+        if (!reference.isEmpty()) {
+            Integer value = reference.firstEntry().getValue();
+            Integer key = table.getKey(value);
+            check(key != null && value.equals(table.get(key)), "getKey(" + value + ") at " + where);
+            }
+    }
+
+    // Fills a table, closes it and checks that every entry survives a
+    // reopen, along with null values, the read only and closed states and
+    // the serializer widths recorded in the file
+    private static void checkReopen(Path file) throws IOException {
+        int n = 100_000;
+        MappedHashtable<Integer, Long> table = new MappedHashtable<Integer, Long>(file, n,
+                Serializer.INTEGER, Serializer.LONG);
+        for (int i = 0; i < n; i++)
+            check(table.put(i, i * 7L), "put " + i);
+        check(table.delete(0) && table.put(-1, null), "delete and put null");
+        table.close();
+        table = new MappedHashtable<Integer, Long>(file, Serializer.INTEGER, Serializer.LONG);
+        check(table.size() == n, "size after reopen " + table.size());
+        for (int i = 1; i < n; i++)
+            check(Long.valueOf(i * 7L).equals(table.get(i)), "get " + i + " after reopen");
+        check(table.get(0) == null && table.get(-1) == null, "deleted or null entries after reopen");
+        check(Integer.valueOf(5).equals(table.getKey(35L)), "getKey after reopen");
+        try {
+            table.put(n, 1L);
+            check(false, "put on a read only table");
+            }
+        catch (UnsupportedOperationException e) {
+            }
+        table.close();
+        try {
+            table.get(1);
+            check(false, "get on a closed table");
+            }
+        catch (IllegalStateException e) {
+            }
+        try {
+            new MappedHashtable<Integer, Integer>(file, Serializer.INTEGER, Serializer.INTEGER).close();
+            check(false, "reopened with a narrower value serializer");
+            }
+        catch (IllegalArgumentException e) {
+            }
+    }
+
+    // A writer keeps readers in other JVMs out, and readers in other
+    // JVMs share the file but keep a writer out
+    private static void checkLocks(Path file) throws IOException, InterruptedException {
+        MappedHashtable<String, Long> writer = new MappedHashtable<String, Long>(file, 10,
+                Serializer.string(16), Serializer.LONG);
+        int n = 0;
+        while (writer.put("k" + n, n * 7L))
+            n++;
+        check(writer.isFull(), "table full after " + n + " puts");
+        Process refused = startReader(file, 0);
+        check(refused.waitFor() == REFUSED, "reader opened while the writer held the file");
+        writer.close();
+
+        Process first = startReader(file, 2000), second = startReader(file, 2000);
+        awaitOpened(first, n);
+        awaitOpened(second, n);
+        try {
+            new MappedHashtable<String, Long>(file, 1, Serializer.string(16), Serializer.LONG).close();
+            check(false, "writer opened while readers held the file");
+            }
+        catch (IOException e) {
+            }
+        check(first.waitFor() == 0 && second.waitFor() == 0, "reader exit status");
+        // once the readers are gone the writer gets in again
+        writer = new MappedHashtable<String, Long>(file, 1, Serializer.string(16), Serializer.LONG);
+        check(writer.size() == n, "size after readers closed");
+        writer.close();
+    }
+
+    // Starts a JVM that opens file read only and holds it for holdMillis
+    private static Process startReader(Path file, long holdMillis) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                MappedHashtableContract.class.getName(), "-reader", file.toString(), Long.toString(holdMillis))
+                .redirectErrorStream(true).start();
+    }
+
+    // Waits until a reader JVM reports that it has the file open
+    private static void awaitOpened(Process reader, int size) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(reader.getInputStream()));
+        String line = out.readLine();
+        check(("opened " + size).equals(line), "reader JVM said " + line);
+    }
+
+    // The reader side of checkLocks, run in its own JVM
+    private static int reader(Path file, long holdMillis) throws IOException, InterruptedException {
+        MappedHashtable<String, Long> table;
+        try {
+            table = new MappedHashtable<String, Long>(file, Serializer.string(16), Serializer.LONG);
+            }
+        catch (IOException e) {
+            return REFUSED;
+            }
+        System.out.println("opened " + table.size());
+        System.out.flush();
+        Thread.sleep(holdMillis);
+        table.close();
+        return 0;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new IllegalStateException(message);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ *  PriorityQueueBenchmark
+ *  Measure insert, peek, contains, delete and remove for every PriorityQueue
+ *  implementation across sizes and key distributions
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+import data_structures.BinaryHeapPriorityQueue;
+import data_structures.ConcurrentBinaryHeapPriorityQueue;
+import data_structures.ConcurrentSkipListPriorityQueue;
+import data_structures.DaryHeapPriorityQueue;
+import data_structures.IndexedHeapPriorityQueue;
+import data_structures.LongPriorityHeap;
+import data_structures.OffHeapPriorityHeap;
+import data_structures.OrderedArrayPriorityQueue;
+import data_structures.OrderedLinkedListPriorityQueue;
+import data_structures.PairingHeapPriorityQueue;
+import data_structures.PriorityQueue;
+import data_structures.RadixHeapPriorityQueue;
+import data_structures.SkipListPriorityQueue;
+import data_structures.TieredArrayPriorityQueue;
+import data_structures.UnorderedArrayPriorityQueue;
+import data_structures.UnorderedLinkedListPriorityQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PriorityQueueBenchmark {
+    // heap widths compared against BinaryHeapPriorityQueue
+    static final int[] ARITIES = { 2, 4, 8 };
+
+    // Creates an empty queue able to hold at least capacity elements
+    interface Factory {
+        PriorityQueue<Integer> create(int capacity);
+    }
+
+    static class Structure {
+        final String name;
+        // true if insert or remove is O(n), these are skipped above the quadratic limit
+        final boolean linear;
+        final Factory factory;
+
+        Structure(String name, boolean linear, Factory factory) {
+            this.name = name;
+            this.linear = linear;
+            this.factory = factory;
+        }
+    }
+
+    static List<Structure> structures() {
+        List<Structure> list = new ArrayList<Structure>();
+        list.add(new Structure("BinaryHeapPriorityQueue", false,
+                capacity -> new BinaryHeapPriorityQueue<Integer>(capacity)));
+        for (int arity : ARITIES)
+            list.add(new Structure("DaryHeapPriorityQueue-" + arity, false,
+                    capacity -> new DaryHeapPriorityQueue<Integer>(arity, capacity)));
+        list.add(new Structure("IndexedHeapPriorityQueue", false,
+                capacity -> new IndexedHeapPriorityQueue<Integer>(capacity)));
+        list.add(new Structure("PairingHeapPriorityQueue", false,
+                capacity -> new PairingHeapPriorityQueue<Integer>()));
+        // every insert comes before the first remove, so the keys are monotone
+        list.add(new Structure("RadixHeapPriorityQueue", false,
+                capacity -> new RadixHeapPriorityQueue<Integer>(Integer::longValue)));
+        list.add(new Structure("ConcurrentBinaryHeapPriorityQueue", false,
+                capacity -> new ConcurrentBinaryHeapPriorityQueue<Integer>(1)));
+        list.add(new Structure("SkipListPriorityQueue", false,
+                capacity -> new SkipListPriorityQueue<Integer>()));
+        list.add(new Structure("ConcurrentSkipListPriorityQueue", false,
+                capacity -> new ConcurrentSkipListPriorityQueue<Integer>()));
+        list.add(new Structure("OrderedArrayPriorityQueue", true,
+                capacity -> new OrderedArrayPriorityQueue<Integer>(capacity)));
+        // O(sqrt n) inserts, so it runs at the sizes the heaps do
+        list.add(new Structure("TieredArrayPriorityQueue", false,
+                capacity -> new TieredArrayPriorityQueue<Integer>(capacity)));
+        list.add(new Structure("UnorderedArrayPriorityQueue", true,
+                capacity -> new UnorderedArrayPriorityQueue<Integer>(capacity)));
+        list.add(new Structure("OrderedLinkedListPriorityQueue", true,
+                capacity -> new OrderedLinkedListPriorityQueue<Integer>()));
+        list.add(new Structure("UnorderedLinkedListPriorityQueue", true,
+                capacity -> new UnorderedLinkedListPriorityQueue<Integer>()));
+        return list;
+    }
+
+    public static void main(String[] args) {
+        BenchmarkHarness harness = new BenchmarkHarness(args);
+        harness.printHeader();
+        for (int size : harness.sizes)
+            for (String distribution : harness.distributions) {
+                int[] raw = harness.keys(distribution, size);
+                Integer[] keys = harness.boxed(raw);
+                for (int arity : ARITIES) {
+                    String name = arity == 2 ? "LongPriorityHeap" : "LongPriorityHeap-" + arity;
+                    if (!harness.selected(name))
+                        continue;
+                    for (int w = 0; w < harness.warmups; w++)
+                        runLongHeap(harness, name, arity, distribution, raw, false);
+                    runLongHeap(harness, name, arity, distribution, raw, true);
+                    }
+                if (harness.selected("OffHeapPriorityHeap")) {
+                    for (int w = 0; w < harness.warmups; w++)
+                        runOffHeap(harness, distribution, raw, false);
+                    runOffHeap(harness, distribution, raw, true);
+                    }
+                for (Structure s : structures()) {
+                    if (!harness.selected(s.name))
+                        continue;
+                    if (s.linear && size > harness.quadraticLimit) {
+                        harness.skipped(s.name, distribution, size, "above -quadraticLimit");
+                        continue;
+                        }
+                    for (int w = 0; w < harness.warmups; w++)
+                        run(harness, s, distribution, keys, false);
+                    run(harness, s, distribution, keys, true);
+                    }
+                }
+    }
+
+    // One pass over a fresh queue: fill it, query it, delete a sample of
+    // keys, then drain whatever is left
+    private static void run(BenchmarkHarness harness, Structure s, String distribution,
+            Integer[] keys, boolean report) {
+        int size = keys.length;
+        PriorityQueue<Integer> pq = s.factory.create(size);
+        List<BenchmarkHarness.Result> results = new ArrayList<BenchmarkHarness.Result>();
+        results.add(harness.measure(s.name, "insert", distribution, size, size,
+                i -> pq.insert(keys[i])));
+        int scans = Math.min(size, harness.scanLimit);
+        // peek is a full scan in the unordered structures
+        int peeks = s.linear ? scans : Math.min(size, harness.queryLimit);
+        results.add(harness.measure(s.name, "peek", distribution, size, peeks, i -> pq.peek()));
+        int step = Math.max(1, size / scans);
+        results.add(harness.measure(s.name, "contains", distribution, size, scans,
+                i -> pq.contains(keys[i * step])));
+        // only delete from half of the sampled keys so the drain has work left
+        int deletes = Math.max(1, scans / 2);
+        results.add(harness.measure(s.name, "delete", distribution, size, deletes,
+                i -> pq.delete(keys[i * step * 2 % size])));
+        results.add(harness.measure(s.name, "remove", distribution, size, pq.size(),
+                i -> pq.remove()));
+        if (report)
+            for (BenchmarkHarness.Result r : results)
+                harness.print(r);
+    }
+
+    // LongPriorityHeap is not a PriorityQueue, it takes primitive priorities
+    // so it runs the same insert, peek and remove pass on the raw keys
+    private static void runLongHeap(BenchmarkHarness harness, String name, int arity,
+            String distribution, int[] keys, boolean report) {
+        int size = keys.length;
+        LongPriorityHeap<Object> heap = new LongPriorityHeap<Object>(size, arity);
+        Object payload = new Object();
+        List<BenchmarkHarness.Result> results = new ArrayList<BenchmarkHarness.Result>();
+        results.add(harness.measure(name, "insert", distribution, size, size,
+                i -> heap.insert(keys[i], payload)));
+        results.add(harness.measure(name, "peek", distribution, size,
+                Math.min(size, harness.queryLimit), i -> heap.peek()));
+        results.add(harness.measure(name, "remove", distribution, size, heap.size(),
+                i -> heap.remove()));
+        if (report)
+            for (BenchmarkHarness.Result r : results)
+                harness.print(r);
+    }
+
+    // OffHeapPriorityHeap takes primitive priorities and payload handles,
+    // it runs the same pass as LongPriorityHeap with the index as handle
+    private static void runOffHeap(BenchmarkHarness harness, String distribution,
+            int[] keys, boolean report) {
+        String name = "OffHeapPriorityHeap";
+        int size = keys.length;
+        OffHeapPriorityHeap heap = new OffHeapPriorityHeap();
+        List<BenchmarkHarness.Result> results = new ArrayList<BenchmarkHarness.Result>();
+        results.add(harness.measure(name, "insert", distribution, size, size,
+                i -> heap.insert(keys[i], i)));
+        results.add(harness.measure(name, "peek", distribution, size,
+                Math.min(size, harness.queryLimit), i -> heap.peek()));
+        results.add(harness.measure(name, "remove", distribution, size, (int) heap.size(),
+                i -> heap.remove()));
+        if (report)
+            for (BenchmarkHarness.Result r : results)
+                harness.print(r);
+    }
+}
@@ -8,14 +8,24 @@
 
 package data_structures;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.ConcurrentModificationException;
 
 @SuppressWarnings("unchecked")
 public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
     public static final int DEFAULT_MAX_CAPACITY = 1000;
-    private int currentSize, maxSize;
+    private int currentSize, maxSize, initialCapacity;
+    // entryNumber is the next number handed out. It goes back to 0 when
+    // the PQ empties, and meld adds other's to it, so it never passes
+    // the number of inserts made since the PQs involved were last empty.
     private long modificationCounter, entryNumber;
     private Wrapper<E>[] heap;
 
@@ -23,12 +33,30 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
         this(DEFAULT_MAX_CAPACITY);
         }
 
+    // Fixed size PQ, insert returns false once max objects are stored
     public BinaryHeapPriorityQueue(int max) {
+        this(max, max);
+        }
+
+    // Growable PQ, the heap starts with initialCapacity slots and doubles
+    // when full, up to max objects. Once it drains to a quarter full it
+    // halves again, but never below initialCapacity.
+    public BinaryHeapPriorityQueue(int initialCapacity, int max) {
+        if (initialCapacity < 0 || max < initialCapacity)
+            throw new IllegalArgumentException("Illegal capacity " + initialCapacity + ", max " + max);
         currentSize = 0;
-        entryNumber = 0;
         maxSize = max;
+        this.initialCapacity = initialCapacity;
         modificationCounter = 0;
-        heap = new Wrapper[maxSize];
+        entryNumber = 0;
+        heap = new Wrapper[initialCapacity];
+        }
+
+    // Fixed size PQ loaded with objects in O(n), equal objects come out
+    // in the collection's iteration order
+    public BinaryHeapPriorityQueue(Collection<? extends E> objects) {
+        this(Math.max(DEFAULT_MAX_CAPACITY, objects.size()));
+        insertAll(objects);
         }
 
     // Inserts a new object into the priority queue. Returns true if
@@ -37,6 +65,8 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
     public boolean insert(E object) {
         if (isFull()) 
             return false;
+        if (currentSize == heap.length)
+            heap = Arrays.copyOf(heap, grownCapacity(heap.length, maxSize));
         // insert Wrapper object as a child
         heap[currentSize] = new Wrapper<E>(object);
         trickleUp(currentSize); // determine correct placement at current position
@@ -45,6 +75,63 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
         return true;
         }
 
+    // Inserts every object in iteration order, as if by repeated calls to
+    // insert(). Returns false and inserts nothing if they do not all fit.
+    public boolean insertAll(Collection<? extends E> objects) {
+        Object[] items = objects.toArray();
+        int oldSize = currentSize, needed = oldSize + items.length;
+        if (needed > maxSize)
+            return false;
+        if (items.length == 0)
+            return true;
+        if (needed > heap.length)
+            heap = Arrays.copyOf(heap, Math.max(needed, grownCapacity(heap.length, maxSize)));
+        for (Object item : items)
+            heap[currentSize++] = new Wrapper<E>((E) item);
+        restoreHeap(oldSize);
+        modificationCounter++;
+        return true;
+        }
+
+    public boolean insertAll(E[] objects) {
+        return insertAll(Arrays.asList(objects));
+        }
+
+    // Moves every object in other into this PQ and leaves other empty.
+    // Returns false and moves nothing if the objects do not all fit.
+    // Another BinaryHeapPriorityQueue's heap is copied across and rebuilt
+    // in O(n + m), any other queue is drained. Either way the melded
+    // objects go behind equal ones already here, in the order they had in
+    // other.
+    public boolean meld(PriorityQueue<E> other) {
+        if (other == this)
+            throw new IllegalArgumentException("Cannot meld a queue into itself");
+        int oldSize = currentSize, needed = oldSize + other.size();
+        if (needed > maxSize)
+            return false;
+        if (!(other instanceof BinaryHeapPriorityQueue)) {
+            List<E> drained = new ArrayList<E>(other.size());
+            while (!other.isEmpty())
+                drained.add(other.remove());
+            return insertAll(drained);
+            }
+        BinaryHeapPriorityQueue<E> o = (BinaryHeapPriorityQueue<E>) other;
+        if (needed > heap.length)
+            heap = Arrays.copyOf(heap, Math.max(needed, grownCapacity(heap.length, maxSize)));
+        // other's entry numbers start at zero too, so shift them all past
+        // this PQ's
+        for (int i = 0; i < o.currentSize; i++) {
+            o.heap[i].number += entryNumber;
+            heap[oldSize + i] = o.heap[i];
+            }
+        entryNumber += o.entryNumber;
+        currentSize = needed;
+        restoreHeap(oldSize);
+        modificationCounter++;
+        o.clear();
+        return true;
+        }
+
     // Removes the object of highest priority that has been in the
     // PQ the longest, and returns it. Returns null if the PQ is empty.
     public E remove() {
@@ -52,28 +139,59 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
             return null;
         E removed = heap[0].data; // parent node to be removed and returned
         trickleDown(0); // remove parent and reorder the heap by swapping parent and children
-        currentSize--;
+        heap[--currentSize] = null;
+        if (currentSize == 0)
+            entryNumber = 0;
         modificationCounter++;
+        shrinkIfSparse();
+        return removed;
+        }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        for (int i = 0; i < n; i++) {
+            c.add(heap[0].data);
+            trickleDown(0);
+            heap[--currentSize] = null;
+            }
+        if (n > 0) {
+            if (currentSize == 0)
+                entryNumber = 0;
+            modificationCounter++;
+            shrinkIfSparse();
+            }
+        return n;
+        }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
         return removed;
         }
 
     // Deletes all instances of the parameter obj from the PQ if found, and
     // returns true. Returns false if no match to the parameter obj is found.
     public boolean delete(E obj) {
-        if (isEmpty()) 
-            return false;
-        // iterate through the heap, if matching element is found
-        // then swap parent and children
+        // keep every non matching element in place, then rebuild the heap
+        // bottom up once instead of patching it after each match
+        int kept = 0;
         for (int i = 0; i < currentSize; i++) {
-            if (heap[i].data.compareTo(obj) == 0) {
-                trickleDown(i);
-                currentSize--;
-                }
-            if (heap[0].data.compareTo(obj) == 0) {
-                remove(); // if the parent node is also matching, then remove it
-                }
+            if (heap[i].data.compareTo(obj) != 0)
+                heap[kept++] = heap[i];
             }
+        if (kept == currentSize)
+            return false;
+        Arrays.fill(heap, kept, currentSize, null);
+        currentSize = kept;
+        if (currentSize == 0)
+            entryNumber = 0;
+        for (int i = (currentSize >> 1) - 1; i >= 0; i--)
+            siftDown(i);
         modificationCounter++;
+        shrinkIfSparse();
         return true;
         }
 
@@ -102,7 +220,9 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
     // Returns the PQ to an empty state.
     public void clear() {
         currentSize = 0;
-        modificationCounter = 0;
+        entryNumber = 0;
+        modificationCounter++;
+        heap = new Wrapper[initialCapacity];
         }
 
     // Returns true if the PQ is empty, otherwise false
@@ -118,6 +238,58 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
         return new IteratorHelper();
         }
 
+    // Writes the capacities and the heap array to out slot by slot, each
+    // object with its entry number so equal objects keep their order
+    // after a restart
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, BinaryHeapPriorityQueue.class);
+        writer.writeInt(initialCapacity);
+        writer.writeInt(maxSize);
+        writer.writeInt(currentSize);
+        for (int i = 0; i < currentSize; i++) {
+            writer.write(serializer, heap[i].data);
+            writer.writeLong(heap[i].number);
+            }
+        writer.finish();
+        }
+
+    // Reads a PQ written by writeSnapshot() back into the same slots. The
+    // array is already a heap, so this is one O(n) pass with no sifting.
+    // Throws IOException if in does not hold one.
+    public static <E extends Comparable<E>> BinaryHeapPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, BinaryHeapPriorityQueue.class);
+        int initialCapacity = reader.readCount();
+        int max = reader.readCount();
+        int size = reader.readCount();
+        if (max < initialCapacity || size > max)
+            throw new IOException("Corrupt snapshot, size " + size + " of max " + max);
+        BinaryHeapPriorityQueue<E> pq = new BinaryHeapPriorityQueue<E>(initialCapacity, max);
+        pq.heap = Arrays.copyOf(pq.heap, Math.max(initialCapacity, size));
+        long last = -1;
+        for (int i = 0; i < size; i++) {
+            pq.heap[i] = pq.new Wrapper<E>(reader.read(serializer));
+            pq.heap[i].number = reader.readLong();
+            last = Math.max(last, pq.heap[i].number);
+            }
+        pq.currentSize = size;
+        // later inserts must still count as newer
+        pq.entryNumber = last + 1;
+        return pq;
+        }
+
+    // Doubles a full array's capacity without passing max
+    private static int grownCapacity(int capacity, int max) {
+        return (int) Math.min(max, Math.max(1L, 2L * capacity));
+        }
+
+    // Halves the heap once it is a quarter full, the gap between the grow
+    // and shrink points keeps a queue hovering at one size from resizing
+    private void shrinkIfSparse() {
+        if (heap.length > initialCapacity && currentSize <= heap.length >> 2)
+            heap = Arrays.copyOf(heap, Math.max(initialCapacity, heap.length >> 1));
+        }
+
     // Method from Riggins course reader, modified to accept index parameter
     // if any child node is smaller than its parent, it's swapped
     private void trickleUp(int index) {
@@ -148,6 +320,37 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
         heap[current] = heap[currentSize - 1];
         }
 
+    // Puts the heap back in order after objects were appended from oldSize
+    // on. A bottom up rebuild costs about 2n compares against log n per
+    // appended object, so only rebuild when many were appended.
+    private void restoreHeap(int oldSize) {
+        int added = currentSize - oldSize;
+        if ((long) added * log2(currentSize) > 2L * currentSize) {
+            for (int i = (currentSize >> 1) - 1; i >= 0; i--)
+                siftDown(i);
+            }
+        else {
+            for (int i = oldSize; i < currentSize; i++)
+                trickleUp(i);
+            }
+        }
+
+    // Floyd's heap construction step, moves heap[index] down past any
+    // smaller child until both of its children are larger
+    private void siftDown(int index) {
+        Wrapper<E> value = heap[index];
+        int child;
+        while ((child = getNextChild(index)) != -1 && heap[child].compareTo(value) < 0) {
+            heap[index] = heap[child];
+            index = child;
+            }
+        heap[index] = value;
+        }
+
+    private static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n);
+        }
+
     // Auxiliary method to find the next child to be
     // inserted or removed from Riggins course reader
     private int getNextChild(int current) {
@@ -200,7 +403,7 @@ public class BinaryHeapPriorityQueue<E extends Comparable<E>> implements Priorit
 
         public int compareTo(Wrapper<E> o) {
             if (((Comparable<E>) data).compareTo(o.data) == 0) {
-                return (int) (number - o.number); // if data is equal, then use sequence number
+                return Long.compare(number, o.number); // if data is equal, then use sequence number
                 }
             return ((Comparable<E>) data).compareTo(o.data);
             }
@@ -0,0 +1,484 @@
+/**
+ *  ConcurrentBinaryHeapPriorityQueue
+ *  Implement a thread safe FIFO Priority Queue for many producers and
+ *  consumers using k independently locked min heaps. Removal compares the
+ *  heads of two random heaps and takes the better one, so the queue scales
+ *  past a single lock at the cost of exact ordering. With one heap the
+ *  ordering is strict.
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+@SuppressWarnings("unchecked")
+public class ConcurrentBinaryHeapPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    public static final int DEFAULT_SHARD_CAPACITY = 64;
+    private final Shard<E>[] shards;
+    // shared by every producer so equal priorities keep insertion order
+    private final AtomicLong entryNumber;
+    private final AtomicInteger currentSize;
+    // consumers blocked in take() or poll() wait here
+    private final ReentrantLock waitLock;
+    private final Condition notEmpty;
+    private volatile int waiters;
+
+    // Relaxed queue with two heaps per available processor
+    public ConcurrentBinaryHeapPriorityQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+        }
+
+    // shards is the number of heaps. 1 gives a strict queue where remove()
+    // always returns the oldest object of highest priority, more heaps
+    // trade that guarantee for less contention.
+    public ConcurrentBinaryHeapPriorityQueue(int shards) {
+        if (shards < 1)
+            throw new IllegalArgumentException("Need at least one shard: " + shards);
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++)
+            this.shards[i] = new Shard<E>();
+        entryNumber = new AtomicLong();
+        currentSize = new AtomicInteger();
+        waitLock = new ReentrantLock();
+        notEmpty = waitLock.newCondition();
+        }
+
+    // Inserts a new object into the priority queue. Returns true if
+    // the insertion is successful. If the PQ is full, the insertion
+    // is aborted, and the method returns false.
+    public boolean insert(E object) {
+        Entry<E> entry = new Entry<E>(object, entryNumber.getAndIncrement());
+        Shard<E> shard = lockAny();
+        try {
+            shard.insert(entry);
+            // raised under the shard lock, like every decrement, so a
+            // consumer can't take the entry out first and the size
+            // never drops below 0
+            currentSize.incrementAndGet();
+            }
+        finally {
+            shard.unlock();
+            }
+        // the size is raised before waiters is read, and a consumer raises
+        // waiters before it reads the size, so one of them sees the other
+        if (waiters > 0) {
+            waitLock.lock();
+            try {
+                notEmpty.signal();
+                }
+            finally {
+                waitLock.unlock();
+                }
+            }
+        return true;
+        }
+
+    // Removes the object of highest priority that has been in the
+    // PQ the longest, and returns it. Returns null if the PQ is empty.
+    // With more than one shard the object removed is the better of two
+    // random shard heads rather than the global best.
+    public E remove() {
+        if (shards.length == 1)
+            return removeFrom(shards[0], true);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < shards.length; attempt++) {
+            if (currentSize.get() == 0)
+                return null;
+            Shard<E> a = shards[random.nextInt(shards.length)];
+            Shard<E> b = shards[random.nextInt(shards.length)];
+            Entry<E> headA = a.head, headB = b.head;
+            Shard<E> best = headB == null || (headA != null && headA.compareTo(headB) <= 0) ? a : b;
+            if (best.head == null || !best.tryLock())
+                continue;
+            E removed = removeFrom(best, false);
+            if (removed != null)
+                return removed;
+            }
+        // the random picks kept missing, so walk every shard before giving up
+        for (Shard<E> shard : shards) {
+            E removed = removeFrom(shard, true);
+            if (removed != null)
+                return removed;
+            }
+        return null;
+        }
+
+    // Removes and returns the object of highest priority, waiting until
+    // one is inserted if the PQ is empty
+    public E take() throws InterruptedException {
+        while (true) {
+            E removed = remove();
+            if (removed != null)
+                return removed;
+            waitLock.lockInterruptibly();
+            try {
+                waiters++;
+                while (currentSize.get() == 0)
+                    notEmpty.await();
+                }
+            finally {
+                waiters--;
+                waitLock.unlock();
+                }
+            }
+        }
+
+    // Removes and returns the object of highest priority, waiting up to
+    // timeout for one to be inserted. Returns null if the time runs out.
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        while (true) {
+            E removed = remove();
+            if (removed != null)
+                return removed;
+            if (nanos <= 0)
+                return null;
+            waitLock.lockInterruptibly();
+            try {
+                waiters++;
+                while (currentSize.get() == 0 && nanos > 0)
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            finally {
+                waiters--;
+                waitLock.unlock();
+                }
+            }
+        }
+
+    // Removes up to max objects and adds them to c, returning the number
+    // moved. The shard holding the best head is locked once and popped
+    // until its head falls behind the next best shard's, so a batch costs
+    // one lock per run rather than one per object and comes out closer to
+    // strict order than repeated remove() calls.
+    public int drainTo(Collection<? super E> c, int max) {
+        int moved = 0;
+        while (moved < max) {
+            Shard<E> best = null;
+            Entry<E> bestHead = null, runnerUp = null;
+            for (Shard<E> shard : shards) {
+                Entry<E> head = shard.head;
+                if (head == null)
+                    continue;
+                if (bestHead == null || head.compareTo(bestHead) < 0) {
+                    runnerUp = bestHead;
+                    bestHead = head;
+                    best = shard;
+                    }
+                else if (runnerUp == null || head.compareTo(runnerUp) < 0)
+                    runnerUp = head;
+                }
+            if (best == null)
+                break;
+            int run = 0;
+            best.lock();
+            try {
+                while (moved < max && best.size > 0
+                        && (run == 0 || runnerUp == null || best.heap[0].compareTo(runnerUp) < 0)) {
+                    c.add(best.remove());
+                    moved++;
+                    run++;
+                    }
+                }
+            finally {
+                currentSize.addAndGet(-run);
+                best.unlock();
+                }
+            }
+        return moved;
+        }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize.get()));
+        drainTo(removed, k);
+        return removed;
+        }
+
+    // Deletes all instances of the parameter obj from the PQ if found, and
+    // returns true. Returns false if no match to the parameter obj is found.
+    public boolean delete(E obj) {
+        boolean found = false;
+        for (Shard<E> shard : shards) {
+            shard.lock();
+            try {
+                int deleted = shard.delete(obj);
+                if (deleted > 0) {
+                    currentSize.addAndGet(-deleted);
+                    found = true;
+                    }
+                }
+            finally {
+                shard.unlock();
+                }
+            }
+        return found;
+        }
+
+    // Returns the object of highest priority that has been in the
+    // PQ the longest, but does NOT remove it.
+    // Returns null if the PQ is empty.
+    public E peek() {
+        Entry<E> best = null;
+        for (Shard<E> shard : shards) {
+            Entry<E> head = shard.head;
+            if (head != null && (best == null || head.compareTo(best) < 0))
+                best = head;
+            }
+        return best == null ? null : best.data;
+        }
+
+    // Returns true if the priority queue contains the specified element
+    // false otherwise.
+    public boolean contains(E obj) {
+        for (Shard<E> shard : shards) {
+            shard.lock();
+            try {
+                if (shard.contains(obj))
+                    return true;
+                }
+            finally {
+                shard.unlock();
+                }
+            }
+        return false;
+        }
+
+    // Returns the number of objects currently in the PQ.
+    public int size() { return currentSize.get(); }
+
+    // Returns the PQ to an empty state.
+    public void clear() {
+        for (Shard<E> shard : shards) {
+            shard.lock();
+            try {
+                currentSize.addAndGet(-shard.size);
+                shard.clear();
+                }
+            finally {
+                shard.unlock();
+                }
+            }
+        }
+
+    // Returns true if the PQ is empty, otherwise false
+    public boolean isEmpty() { return currentSize.get() == 0; }
+
+    // Returns true if the PQ is full, otherwise false. The shards grow
+    // as needed so this is always false.
+    public boolean isFull() { return false; }
+
+    // Returns an iterator of the objects in the PQ, in no particular
+    // order. The iterator works from a copy of each shard taken when it
+    // is created and never throws ConcurrentModificationException.
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<E>(currentSize.get());
+        for (Shard<E> shard : shards) {
+            shard.lock();
+            try {
+                for (int i = 0; i < shard.size; i++)
+                    snapshot.add(shard.heap[i].data);
+                }
+            finally {
+                shard.unlock();
+                }
+            }
+        return snapshot.iterator();
+        }
+
+    // Writes the next sequence number and every shard's heap array to out
+    // slot by slot, each object with its sequence number. All shards are
+    // locked together just long enough to copy their arrays, so the
+    // snapshot is one consistent cut and writing it blocks no one.
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Entry<E>[][] heaps = new Entry[shards.length][];
+        long next;
+        for (Shard<E> shard : shards)
+            shard.lock();
+        try {
+            for (int i = 0; i < shards.length; i++)
+                heaps[i] = Arrays.copyOf(shards[i].heap, shards[i].size);
+            next = entryNumber.get();
+            }
+        finally {
+            for (Shard<E> shard : shards)
+                shard.unlock();
+            }
+        Snapshot.Writer writer = new Snapshot.Writer(out, ConcurrentBinaryHeapPriorityQueue.class);
+        writer.writeInt(shards.length);
+        writer.writeLong(next);
+        for (Entry<E>[] heap : heaps) {
+            writer.writeInt(heap.length);
+            for (Entry<E> entry : heap) {
+                writer.write(serializer, entry.data);
+                writer.writeLong(entry.number);
+                }
+            }
+        writer.finish();
+        }
+
+    // Reads a PQ written by writeSnapshot() back into the same number of
+    // shards, each array slot for slot with no sifting. Throws IOException
+    // if in does not hold one.
+    public static <E extends Comparable<E>> ConcurrentBinaryHeapPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, ConcurrentBinaryHeapPriorityQueue.class);
+        int shardCount = reader.readInt();
+        if (shardCount < 1)
+            throw new IOException("Corrupt snapshot, " + shardCount + " shards");
+        ConcurrentBinaryHeapPriorityQueue<E> pq = new ConcurrentBinaryHeapPriorityQueue<E>(shardCount);
+        pq.entryNumber.set(reader.readLong());
+        for (Shard<E> shard : pq.shards) {
+            int size = reader.readCount();
+            shard.heap = new Entry[Math.max(DEFAULT_SHARD_CAPACITY, size)];
+            for (int i = 0; i < size; i++)
+                shard.heap[i] = new Entry<E>(reader.read(serializer), reader.readLong());
+            shard.size = size;
+            shard.head = size == 0 ? null : shard.heap[0];
+            pq.currentSize.addAndGet(size);
+            }
+        return pq;
+        }
+
+    // Locks a random shard, trying others before blocking on one
+    private Shard<E> lockAny() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (shards.length > 1)
+            for (int attempt = 0; attempt < shards.length; attempt++) {
+                Shard<E> shard = shards[random.nextInt(shards.length)];
+                if (shard.tryLock())
+                    return shard;
+                }
+        Shard<E> shard = shards[random.nextInt(shards.length)];
+        shard.lock();
+        return shard;
+        }
+
+    // Removes the head of shard. If lock is false the caller already holds it.
+    private E removeFrom(Shard<E> shard, boolean lock) {
+        if (lock)
+            shard.lock();
+        try {
+            if (shard.size == 0)
+                return null;
+            E removed = shard.remove();
+            currentSize.decrementAndGet();
+            return removed;
+            }
+        finally {
+            shard.unlock();
+            }
+        }
+
+    // One min heap guarded by its own lock. head mirrors heap[0] so other
+    // threads can compare shard heads without locking.
+    private static class Shard<E extends Comparable<E>> extends ReentrantLock {
+        Entry<E>[] heap = new Entry[DEFAULT_SHARD_CAPACITY];
+        int size;
+        volatile Entry<E> head;
+
+        void insert(Entry<E> entry) {
+            if (size == heap.length)
+                heap = Arrays.copyOf(heap, size << 1);
+            heap[size] = entry;
+            trickleUp(size++);
+            head = heap[0];
+            }
+
+        E remove() {
+            E removed = heap[0].data;
+            heap[0] = heap[--size];
+            heap[size] = null;
+            if (size > 0)
+                trickleDown(0);
+            head = size == 0 ? null : heap[0];
+            return removed;
+            }
+
+        // Removes every match and rebuilds the heap bottom up
+        int delete(E obj) {
+            int kept = 0;
+            for (int i = 0; i < size; i++)
+                if (heap[i].data.compareTo(obj) != 0)
+                    heap[kept++] = heap[i];
+            int deleted = size - kept;
+            for (int i = kept; i < size; i++)
+                heap[i] = null;
+            size = kept;
+            for (int i = (size >> 1) - 1; i >= 0; i--)
+                trickleDown(i);
+            head = size == 0 ? null : heap[0];
+            return deleted;
+            }
+
+        boolean contains(E obj) {
+            for (int i = 0; i < size; i++)
+                if (heap[i].data.compareTo(obj) == 0)
+                    return true;
+            return false;
+            }
+
+        void clear() {
+            Arrays.fill(heap, 0, size, null);
+            size = 0;
+            head = null;
+            }
+
+        private void trickleUp(int index) {
+            Entry<E> newValue = heap[index];
+            int parent = (index - 1) >> 1;
+            while (index > 0 && newValue.compareTo(heap[parent]) < 0) {
+                heap[index] = heap[parent];
+                index = parent;
+                parent = (parent - 1) >> 1;
+                }
+            heap[index] = newValue;
+            }
+
+        private void trickleDown(int index) {
+            Entry<E> value = heap[index];
+            int child;
+            while ((child = (index << 1) + 1) < size) {
+                if (child + 1 < size && heap[child + 1].compareTo(heap[child]) < 0)
+                    child++;
+                if (heap[child].compareTo(value) >= 0)
+                    break;
+                heap[index] = heap[child];
+                index = child;
+                }
+            heap[index] = value;
+            }
+    }
+
+    // Same ordering as the Wrapper class in BinaryHeapPriorityQueue, with
+    // the sequence number handed out by the shared counter
+    private static class Entry<E extends Comparable<E>> implements Comparable<Entry<E>> {
+        final E data;
+        final long number;
+
+        Entry(E data, long number) {
+            this.data = data;
+            this.number = number;
+            }
+
+        public int compareTo(Entry<E> o) {
+            int cmp = data.compareTo(o.data);
+            return cmp != 0 ? cmp : Long.compare(number, o.number);
+            }
+    }
+}
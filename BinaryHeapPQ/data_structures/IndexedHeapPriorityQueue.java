@@ -0,0 +1,419 @@
+/**
+ *  IndexedHeapPriorityQueue
+ *  Implement a FIFO Priority Queue as a binary min heap that also keeps a
+ *  hash index from each object to its heap slot. delete and contains go
+ *  through the index instead of scanning, and an object whose priority
+ *  changes can be moved to its new place in O(log n), which is what
+ *  decrease-key in Dijkstra or A* and deadline rescheduling need.
+ *  Objects are found in the index with equals and hashCode, so two
+ *  objects that compare equal but are not equals() are different entries.
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class IndexedHeapPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    public static final int DEFAULT_MAX_CAPACITY = 1000;
+    private int currentSize, maxSize, initialCapacity;
+    private long modificationCounter, entryNumber;
+    private Entry<E>[] heap;
+    // first entry for each object, later inserts of an equal object are
+    // chained behind it oldest first
+    private Map<E, Entry<E>> index;
+
+    public IndexedHeapPriorityQueue() {
+        this(DEFAULT_MAX_CAPACITY);
+        }
+
+    // Fixed size PQ, insert returns false once max objects are stored
+    public IndexedHeapPriorityQueue(int max) {
+        this(max, max);
+        }
+
+    // Growable PQ, the heap starts with initialCapacity slots and doubles
+    // when full, up to max objects. Once it drains to a quarter full it
+    // halves again, but never below initialCapacity.
+    public IndexedHeapPriorityQueue(int initialCapacity, int max) {
+        if (initialCapacity < 0 || max < initialCapacity)
+            throw new IllegalArgumentException("Illegal capacity " + initialCapacity + ", max " + max);
+        currentSize = 0;
+        entryNumber = 0;
+        maxSize = max;
+        this.initialCapacity = initialCapacity;
+        modificationCounter = 0;
+        heap = new Entry[initialCapacity];
+        index = new HashMap<E, Entry<E>>();
+        }
+
+    // Inserts a new object into the priority queue. Returns true if
+    // the insertion is successful. If the PQ is full, the insertion
+    // is aborted, and the method returns false.
+    public boolean insert(E object) {
+        if (isFull())
+            return false;
+        if (currentSize == heap.length)
+            heap = Arrays.copyOf(heap, grownCapacity(heap.length, maxSize));
+        Entry<E> entry = new Entry<E>(object, entryNumber++);
+        link(entry);
+        heap[currentSize] = entry;
+        entry.slot = currentSize;
+        trickleUp(currentSize++);
+        modificationCounter++;
+        return true;
+        }
+
+    // Removes the object of highest priority that has been in the
+    // PQ the longest, and returns it. Returns null if the PQ is empty.
+    public E remove() {
+        if (isEmpty())
+            return null;
+        Entry<E> removed = heap[0];
+        removeAt(0);
+        unindex(removed);
+        modificationCounter++;
+        shrinkIfSparse();
+        return removed.data;
+        }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        for (int i = 0; i < n; i++) {
+            Entry<E> removed = heap[0];
+            removeAt(0);
+            unindex(removed);
+            c.add(removed.data);
+            }
+        if (n > 0) {
+            modificationCounter++;
+            shrinkIfSparse();
+            }
+        return n;
+        }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
+        }
+
+    // Deletes all instances of the parameter obj from the PQ if found, and
+    // returns true. Returns false if no match to the parameter obj is found.
+    // Each instance is found through the index and removed in O(log n).
+    public boolean delete(E obj) {
+        Entry<E> entry = index.remove(obj);
+        if (entry == null)
+            return false;
+        for (; entry != null; entry = entry.same)
+            removeAt(entry.slot);
+        modificationCounter++;
+        shrinkIfSparse();
+        return true;
+        }
+
+    // Moves every instance of obj to its new place after its priority
+    // was changed in place, O(log n) for an object queued once. Objects
+    // whose equals and hashCode depend on the priority must use
+    // updatePriority(old, updated) instead. Returns false if obj is not
+    // in the PQ.
+    public boolean updatePriority(E obj) {
+        Entry<E> entry = index.get(obj);
+        if (entry == null)
+            return false;
+        if (entry.same == null)
+            resift(entry.slot);
+        else {
+            // sifting one instance assumes the rest of the heap is in
+            // order, so with several moved at once rebuild it bottom up
+            for (int i = (currentSize >> 1) - 1; i >= 0; i--)
+                trickleDown(i);
+            }
+        modificationCounter++;
+        return true;
+        }
+
+    // Replaces the instance of old that has been in the PQ the longest
+    // with updated and moves it to its new place. It keeps its original
+    // place in line among equal priorities. Returns false if old is not
+    // in the PQ.
+    public boolean updatePriority(E old, E updated) {
+        Entry<E> entry = index.get(old);
+        if (entry == null)
+            return false;
+        unindex(entry);
+        entry.data = updated;
+        link(entry);
+        resift(entry.slot);
+        modificationCounter++;
+        return true;
+        }
+
+    // updatePriority(old, updated) for an updated priority no lower than
+    // old's. Throws IllegalArgumentException if updated would come out
+    // after old.
+    public boolean decreaseKey(E old, E updated) {
+        if (updated.compareTo(old) > 0)
+            throw new IllegalArgumentException("Updated object would come out after the old one");
+        return updatePriority(old, updated);
+        }
+
+    // Returns the object of highest priority that has been in the
+    // PQ the longest, but does NOT remove it.
+    // Returns null if the PQ is empty.
+    public E peek() {
+        if (isEmpty())
+            return null;
+        return heap[0].data;
+        }
+
+    // Returns true if the priority queue contains the specified element
+    // false otherwise.
+    public boolean contains(E obj) {
+        return index.containsKey(obj);
+        }
+
+    // Returns the number of objects currently in the PQ.
+    public int size() { return currentSize; }
+
+    // Returns the PQ to an empty state.
+    public void clear() {
+        currentSize = 0;
+        modificationCounter++;
+        heap = new Entry[initialCapacity];
+        index.clear();
+        }
+
+    // Returns true if the PQ is empty, otherwise false
+    public boolean isEmpty() { return currentSize == 0; }
+
+    // Returns true if the PQ is full, otherwise false. List based
+    // implementations should always return false.
+    public boolean isFull() { return currentSize == maxSize; }
+
+    // Returns an iterator of the objects in the PQ, in no particular
+    // order.
+    public Iterator<E> iterator() {
+        return new IteratorHelper();
+        }
+
+    // Writes the capacities, next sequence number and the heap array to
+    // out slot by slot, each object with its sequence number
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, IndexedHeapPriorityQueue.class);
+        writer.writeInt(initialCapacity);
+        writer.writeInt(maxSize);
+        writer.writeLong(entryNumber);
+        writer.writeInt(currentSize);
+        for (int i = 0; i < currentSize; i++) {
+            writer.write(serializer, heap[i].data);
+            writer.writeLong(heap[i].number);
+            }
+        writer.finish();
+        }
+
+    // Reads a PQ written by writeSnapshot() back into the same slots with
+    // no sifting, and indexes each entry as it arrives. Throws IOException
+    // if in does not hold one.
+    public static <E extends Comparable<E>> IndexedHeapPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, IndexedHeapPriorityQueue.class);
+        int initialCapacity = reader.readCount();
+        int max = reader.readCount();
+        long entryNumber = reader.readLong();
+        int size = reader.readCount();
+        if (max < initialCapacity || size > max)
+            throw new IOException("Corrupt snapshot, size " + size + " of max " + max);
+        IndexedHeapPriorityQueue<E> pq = new IndexedHeapPriorityQueue<E>(initialCapacity, max);
+        pq.heap = new Entry[Math.max(initialCapacity, size)];
+        for (int i = 0; i < size; i++) {
+            Entry<E> entry = new Entry<E>(reader.read(serializer), reader.readLong());
+            entry.slot = i;
+            pq.heap[i] = entry;
+            }
+        // slots are not in insertion order, so the entries are indexed in
+        // sequence number order and every link is an append
+        Entry<E>[] byNumber = Arrays.copyOf(pq.heap, size);
+        Arrays.sort(byNumber, (a, b) -> Long.compare(a.number, b.number));
+        for (Entry<E> entry : byNumber)
+            pq.link(entry);
+        pq.currentSize = size;
+        pq.entryNumber = entryNumber;
+        return pq;
+        }
+
+    // Doubles a full array's capacity without passing max
+    private static int grownCapacity(int capacity, int max) {
+        return (int) Math.min(max, Math.max(1L, 2L * capacity));
+        }
+
+    // Halves the heap once it is a quarter full, the gap between the grow
+    // and shrink points keeps a queue hovering at one size from resizing
+    private void shrinkIfSparse() {
+        if (heap.length > initialCapacity && currentSize <= heap.length >> 2)
+            heap = Arrays.copyOf(heap, Math.max(initialCapacity, heap.length >> 1));
+        }
+
+    // Takes the entry at slot out of the heap by moving the last entry
+    // into its place and sifting that either way. The index is not touched.
+    private void removeAt(int slot) {
+        int last = --currentSize;
+        Entry<E> moved = heap[last];
+        heap[last] = null;
+        if (slot != last) {
+            heap[slot] = moved;
+            moved.slot = slot;
+            resift(slot);
+            }
+        }
+
+    // Adds entry to the chain of instances of its object, kept in
+    // insertion order. A new entry is the newest, so it goes after the
+    // tail in O(1). An older one from updatePriority walks back from the
+    // tail to its place.
+    private void link(Entry<E> entry) {
+        Entry<E> first = index.putIfAbsent(entry.data, entry);
+        if (first == null) {
+            entry.last = entry;
+            return;
+            }
+        Entry<E> before = first.last;
+        while (before != null && before.number > entry.number)
+            before = before.prev;
+        if (before == null) {
+            // the oldest instance becomes the head of the chain
+            entry.same = first;
+            entry.last = first.last;
+            first.prev = entry;
+            first.last = null;
+            index.put(entry.data, entry);
+            return;
+            }
+        entry.prev = before;
+        entry.same = before.same;
+        if (before.same == null)
+            first.last = entry;
+        else
+            before.same.prev = entry;
+        before.same = entry;
+        }
+
+    // Drops entry from the chain of instances of its object in O(1)
+    private void unindex(Entry<E> entry) {
+        Entry<E> next = entry.same, prev = entry.prev;
+        if (prev == null) {
+            if (next == null)
+                index.remove(entry.data);
+            else {
+                next.prev = null;
+                next.last = entry.last;
+                index.put(entry.data, next);
+                }
+            }
+        else {
+            prev.same = next;
+            if (next == null)
+                index.get(entry.data).last = prev;
+            else
+                next.prev = prev;
+            }
+        entry.same = entry.prev = entry.last = null;
+        }
+
+    private void resift(int slot) {
+        if (trickleDown(slot) == slot)
+            trickleUp(slot);
+        }
+
+    // Moves the entry at index up past larger parents
+    private void trickleUp(int index) {
+        Entry<E> value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+            if (value.compareTo(heap[parent]) >= 0)
+                break;
+            heap[index] = heap[parent];
+            heap[index].slot = index;
+            index = parent;
+            }
+        heap[index] = value;
+        value.slot = index;
+        }
+
+    // Moves the entry at index down past smaller children and returns
+    // where it ends up
+    private int trickleDown(int index) {
+        Entry<E> value = heap[index];
+        int child;
+        while ((child = (index << 1) + 1) < currentSize) {
+            if (child + 1 < currentSize && heap[child + 1].compareTo(heap[child]) < 0)
+                child++;
+            if (heap[child].compareTo(value) >= 0)
+                break;
+            heap[index] = heap[child];
+            heap[index].slot = index;
+            index = child;
+            }
+        heap[index] = value;
+        value.slot = index;
+        return index;
+        }
+
+    class IteratorHelper implements Iterator<E> {
+        int iterIndex;
+        long stateCheck;
+
+        public IteratorHelper() {
+            iterIndex = 0;
+            stateCheck = modificationCounter;
+            }
+
+        public boolean hasNext() {
+            if (stateCheck != modificationCounter)
+                throw new ConcurrentModificationException();
+            return iterIndex < currentSize;
+            }
+
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return heap[iterIndex++].data;
+            }
+    }
+
+    // Heap entry that remembers its slot so the index can find it
+    private static class Entry<E extends Comparable<E>> implements Comparable<Entry<E>> {
+        E data;
+        final long number;
+        int slot;
+        // next and previous instance of an equal object, in insertion
+        // order. last is the newest instance, kept on the oldest only.
+        Entry<E> same, prev, last;
+
+        Entry(E data, long number) {
+            this.data = data;
+            this.number = number;
+            }
+
+        public int compareTo(Entry<E> o) {
+            int cmp = data.compareTo(o.data);
+            return cmp != 0 ? cmp : Long.compare(number, o.number);
+            }
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ *  LongPriorityHeap
+ *  Implement a FIFO min heap keyed by primitive long priorities such as
+ *  timestamps. Priorities, sequence numbers and payloads are kept in
+ *  parallel arrays so insert and remove allocate nothing once the arrays
+ *  are big enough, and every comparison is on raw longs. The heap can be
+ *  4 or 8 ary, in which case the children of a node are neighbouring longs
+ *  and one sift step reads them from one or two cache lines.
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class LongPriorityHeap<E> implements Iterable<E> {
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    // arity is a power of two so the child and parent index math is a shift
+    private final int arity, shift;
+    private long[] priorities, sequence;
+    private Object[] payloads;
+    private int currentSize;
+    private long modificationCounter, entryNumber;
+
+    public LongPriorityHeap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+        }
+
+    // The arrays start with initialCapacity slots and double when full
+    public LongPriorityHeap(int initialCapacity) {
+        this(initialCapacity, 2);
+        }
+
+    // A heap with arity children per node, 2, 4 or 8 are the useful choices
+    public LongPriorityHeap(int initialCapacity, int arity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity " + initialCapacity);
+        if (arity < 2 || Integer.bitCount(arity) != 1)
+            throw new IllegalArgumentException("Arity must be a power of two: " + arity);
+        this.arity = arity;
+        shift = Integer.numberOfTrailingZeros(arity);
+        priorities = new long[initialCapacity];
+        sequence = new long[initialCapacity];
+        payloads = new Object[initialCapacity];
+        currentSize = 0;
+        entryNumber = 0;
+        modificationCounter = 0;
+        }
+
+    // Inserts payload with the given priority, lower values come out
+    // first and equal priorities come out in insertion order
+    public void insert(long priority, E payload) {
+        if (currentSize == priorities.length)
+            grow();
+        trickleUp(currentSize++, priority, entryNumber++, payload);
+        modificationCounter++;
+        }
+
+    // Removes and returns the payload with the lowest priority that has
+    // been in the heap the longest. Returns null if the heap is empty.
+    public E remove() {
+        if (currentSize == 0)
+            return null;
+        E removed = (E) payloads[0];
+        int last = --currentSize;
+        if (last > 0)
+            trickleDown(0, priorities[last], sequence[last], payloads[last]);
+        payloads[last] = null;
+        modificationCounter++;
+        return removed;
+        }
+
+    // Removes up to max payloads in the order remove() would return them
+    // and adds them to c. Returns the number of payloads moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        for (int i = 0; i < n; i++) {
+            c.add((E) payloads[0]);
+            int last = --currentSize;
+            if (last > 0)
+                trickleDown(0, priorities[last], sequence[last], payloads[last]);
+            payloads[last] = null;
+            }
+        if (n > 0)
+            modificationCounter++;
+        return n;
+        }
+
+    // Removes up to k payloads and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
+        }
+
+    // Returns the payload remove() would return without removing it,
+    // null if the heap is empty
+    public E peek() {
+        return currentSize == 0 ? null : (E) payloads[0];
+        }
+
+    // Returns the lowest priority in the heap
+    public long peekPriority() {
+        if (currentSize == 0)
+            throw new NoSuchElementException();
+        return priorities[0];
+        }
+
+    public int size() { return currentSize; }
+
+    public boolean isEmpty() { return currentSize == 0; }
+
+    // Returns the number of children per node
+    public int arity() { return arity; }
+
+    // Empties the heap but keeps the arrays for reuse
+    public void clear() {
+        Arrays.fill(payloads, 0, currentSize, null);
+        currentSize = 0;
+        modificationCounter++;
+        }
+
+    // Returns a fail-fast iterator of the payloads in no particular order
+    public Iterator<E> iterator() {
+        return new IteratorHelper();
+        }
+
+    // Writes the arity, next sequence number and the heap arrays to out
+    // slot by slot
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, LongPriorityHeap.class);
+        writer.writeInt(arity);
+        writer.writeLong(entryNumber);
+        writer.writeInt(currentSize);
+        for (int i = 0; i < currentSize; i++) {
+            writer.writeLong(priorities[i]);
+            writer.writeLong(sequence[i]);
+            writer.write(serializer, (E) payloads[i]);
+            }
+        writer.finish();
+        }
+
+    // Reads a heap written by writeSnapshot() back into the same slots in
+    // O(n) with no sifting. Throws IOException if in does not hold one.
+    public static <E> LongPriorityHeap<E> readSnapshot(ReadableByteChannel in,
+            Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, LongPriorityHeap.class);
+        int arity = reader.readInt();
+        long entryNumber = reader.readLong();
+        int size = reader.readCount();
+        LongPriorityHeap<E> heap = new LongPriorityHeap<E>(Math.max(DEFAULT_INITIAL_CAPACITY, size), arity);
+        for (int i = 0; i < size; i++) {
+            heap.priorities[i] = reader.readLong();
+            heap.sequence[i] = reader.readLong();
+            heap.payloads[i] = reader.read(serializer);
+            }
+        heap.currentSize = size;
+        heap.entryNumber = entryNumber;
+        return heap;
+        }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_INITIAL_CAPACITY, priorities.length << 1);
+        priorities = Arrays.copyOf(priorities, capacity);
+        sequence = Arrays.copyOf(sequence, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        }
+
+    // true if entry (p1, s1) comes out before (p2, s2)
+    private static boolean before(long p1, long s1, long p2, long s2) {
+        return p1 < p2 || (p1 == p2 && s1 < s2);
+        }
+
+    // Moves the hole at index up until the new entry fits, then fills it
+    private void trickleUp(int index, long priority, long number, Object payload) {
+        while (index > 0) {
+            int parent = (index - 1) >> shift;
+            if (!before(priority, number, priorities[parent], sequence[parent]))
+                break;
+            priorities[index] = priorities[parent];
+            sequence[index] = sequence[parent];
+            payloads[index] = payloads[parent];
+            index = parent;
+            }
+        priorities[index] = priority;
+        sequence[index] = number;
+        payloads[index] = payload;
+        }
+
+    // Moves the hole at index down past the smallest of its children while
+    // that child comes first, then fills it
+    private void trickleDown(int index, long priority, long number, Object payload) {
+        int first;
+        while ((first = (index << shift) + 1) < currentSize) {
+            int child = first;
+            int end = Math.min(first + arity, currentSize);
+            for (int c = first + 1; c < end; c++)
+                if (before(priorities[c], sequence[c], priorities[child], sequence[child]))
+                    child = c;
+            if (!before(priorities[child], sequence[child], priority, number))
+                break;
+            priorities[index] = priorities[child];
+            sequence[index] = sequence[child];
+            payloads[index] = payloads[child];
+            index = child;
+            }
+        priorities[index] = priority;
+        sequence[index] = number;
+        payloads[index] = payload;
+        }
+
+    class IteratorHelper implements Iterator<E> {
+        int iterIndex;
+        long stateCheck;
+
+        public IteratorHelper() {
+            iterIndex = 0;
+            stateCheck = modificationCounter;
+            }
+
+        public boolean hasNext() {
+            if (stateCheck != modificationCounter)
+                throw new ConcurrentModificationException();
+            return iterIndex < currentSize;
+            }
+
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return (E) payloads[iterIndex++];
+            }
+    }
+}
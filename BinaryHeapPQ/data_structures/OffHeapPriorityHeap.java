@@ -0,0 +1,299 @@
+/**
+ *  OffHeapPriorityHeap
+ *  Implement a FIFO binary min heap whose array lives outside the Java
+ *  heap, in direct ByteBuffers. Every entry is a fixed width record of a
+ *  long priority, a long sequence number and a long payload handle, so
+ *  sifts run on raw memory, the garbage collector never scans the heap,
+ *  and the array is split into chunks so it can grow past 2 GB.
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class OffHeapPriorityHeap {
+    // 64K records, 1.5 MB per chunk
+    public static final int DEFAULT_CHUNK_RECORDS = 1 << 16;
+    // each record is priority, sequence number, payload handle
+    private static final int RECORD_BYTES = 24;
+    private static final int PRIORITY = 0, SEQUENCE = 8, PAYLOAD = 16;
+    // record i is in chunks[i >>> chunkShift] at slot i & chunkMask
+    private final int chunkShift;
+    private final long chunkMask;
+    private ByteBuffer[] chunks;
+    private int chunkCount;
+    private long currentSize;
+    private long modificationCounter, entryNumber;
+
+    public OffHeapPriorityHeap() {
+        this(DEFAULT_CHUNK_RECORDS);
+        }
+
+    // Storage is added chunkRecords records at a time, chunkRecords must be
+    // a power of two. Growing allocates a chunk and never copies the ones
+    // already filled.
+    public OffHeapPriorityHeap(int chunkRecords) {
+        if (chunkRecords < 1 || Integer.bitCount(chunkRecords) != 1
+                || (long) chunkRecords * RECORD_BYTES > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Illegal chunk size " + chunkRecords);
+        chunkShift = Integer.numberOfTrailingZeros(chunkRecords);
+        chunkMask = chunkRecords - 1;
+        chunks = new ByteBuffer[16];
+        chunkCount = 0;
+        currentSize = 0;
+        entryNumber = 0;
+        modificationCounter = 0;
+        }
+
+    // Inserts the payload handle with the given priority, lower values come
+    // out first and equal priorities come out in insertion order. The
+    // handle is any long the caller can turn back into its object, such as
+    // an index into its own storage or a file offset.
+    public void insert(long priority, long payload) {
+        if (currentSize == (long) chunkCount << chunkShift)
+            addChunk();
+        trickleUp(currentSize++, priority, entryNumber++, payload);
+        modificationCounter++;
+        }
+
+    // Removes and returns the payload with the lowest priority that has
+    // been in the heap the longest. Throws NoSuchElementException if the
+    // heap is empty.
+    public long remove() {
+        if (currentSize == 0)
+            throw new NoSuchElementException();
+        long removed = removeFirst();
+        modificationCounter++;
+        return removed;
+        }
+
+    // Removes up to max payloads in the order remove() would return them
+    // into the start of to. Returns the number of payloads moved.
+    public int drainTo(long[] to, int max) {
+        int n = (int) Math.min(Math.min(Math.max(max, 0), to.length), currentSize);
+        for (int i = 0; i < n; i++)
+            to[i] = removeFirst();
+        if (n > 0)
+            modificationCounter++;
+        return n;
+        }
+
+    // Returns the payload remove() would return without removing it.
+    // Throws NoSuchElementException if the heap is empty.
+    public long peek() {
+        if (currentSize == 0)
+            throw new NoSuchElementException();
+        return chunks[0].getLong(PAYLOAD);
+        }
+
+    // Returns the lowest priority in the heap
+    public long peekPriority() {
+        if (currentSize == 0)
+            throw new NoSuchElementException();
+        return chunks[0].getLong(PRIORITY);
+        }
+
+    public long size() { return currentSize; }
+
+    public boolean isEmpty() { return currentSize == 0; }
+
+    // Returns the number of bytes of direct memory the heap holds
+    public long capacityBytes() { return (long) chunkCount * RECORD_BYTES << chunkShift; }
+
+    // Empties the heap and lets go of every chunk but the first
+    public void clear() {
+        Arrays.fill(chunks, Math.min(chunkCount, 1), chunkCount, null);
+        chunkCount = Math.min(chunkCount, 1);
+        currentSize = 0;
+        modificationCounter++;
+        }
+
+    // Returns a fail-fast iterator of the payloads in no particular order
+    public PrimitiveIterator.OfLong iterator() {
+        return new IteratorHelper();
+        }
+
+    // Writes the chunk size, next sequence number and the records to out.
+    // The records are already bytes, so each chunk goes out in one write.
+    public void writeSnapshot(WritableByteChannel out) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, OffHeapPriorityHeap.class);
+        writer.writeInt(1 << chunkShift);
+        writer.writeLong(entryNumber);
+        writer.writeLong(currentSize);
+        // records go out in native byte order, flagged so a machine of the
+        // other order can flip them
+        writer.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+        for (long i = 0; i < currentSize; i += 1L << chunkShift) {
+            ByteBuffer chunk = chunk(i).duplicate();
+            chunk.clear().limit((int) Math.min(currentSize - i, 1L << chunkShift) * RECORD_BYTES);
+            writer.writeBytes(chunk);
+            }
+        writer.finish();
+        }
+
+    // Reads a heap written by writeSnapshot() straight into fresh chunks
+    // in O(n) with no sifting. Throws IOException if in does not hold one.
+    public static OffHeapPriorityHeap readSnapshot(ReadableByteChannel in) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, OffHeapPriorityHeap.class);
+        int chunkRecords = reader.readInt();
+        long entryNumber = reader.readLong();
+        long size = reader.readLong();
+        boolean littleEndian = reader.readBoolean();
+        if (size < 0)
+            throw new IOException("Corrupt snapshot, size " + size);
+        OffHeapPriorityHeap heap = new OffHeapPriorityHeap(chunkRecords);
+        while (heap.currentSize < size) {
+            heap.addChunk();
+            ByteBuffer chunk = heap.chunks[heap.chunkCount - 1].duplicate();
+            int records = (int) Math.min(size - heap.currentSize, chunkRecords);
+            chunk.clear().limit(records * RECORD_BYTES);
+            reader.readBytes(chunk);
+            heap.currentSize += records;
+            }
+        // a snapshot from a machine of the other byte order is flipped
+        // in place
+        if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN))
+            for (long i = 0; i < size * 3; i++) {
+                ByteBuffer chunk = heap.chunk(i / 3);
+                int at = heap.offset(i / 3) + (int) (i % 3) * 8;
+                chunk.putLong(at, Long.reverseBytes(chunk.getLong(at)));
+                }
+        heap.entryNumber = entryNumber;
+        return heap;
+        }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunkCount << 1);
+        // native order so each getLong is a plain load
+        chunks[chunkCount++] = ByteBuffer.allocateDirect(RECORD_BYTES << chunkShift)
+                .order(ByteOrder.nativeOrder());
+        }
+
+    // Drops the last chunk once the heap has shrunk two chunks below it,
+    // the spare in between keeps a heap hovering at a chunk boundary from
+    // allocating on every insert. The memory is freed when the buffer is
+    // garbage collected.
+    private void trimChunks() {
+        if (chunkCount > 2 && currentSize <= (long) (chunkCount - 2) << chunkShift)
+            chunks[--chunkCount] = null;
+        }
+
+    private long removeFirst() {
+        long removed = chunks[0].getLong(PAYLOAD);
+        long last = --currentSize;
+        if (last > 0) {
+            ByteBuffer chunk = chunk(last);
+            int at = offset(last);
+            trickleDown(0, chunk.getLong(at + PRIORITY), chunk.getLong(at + SEQUENCE),
+                    chunk.getLong(at + PAYLOAD));
+            }
+        trimChunks();
+        return removed;
+        }
+
+    private ByteBuffer chunk(long index) {
+        return chunks[(int) (index >>> chunkShift)];
+        }
+
+    private int offset(long index) {
+        return (int) (index & chunkMask) * RECORD_BYTES;
+        }
+
+    // true if entry (p1, s1) comes out before (p2, s2)
+    private static boolean before(long p1, long s1, long p2, long s2) {
+        return p1 < p2 || (p1 == p2 && s1 < s2);
+        }
+
+    private void copy(long from, long to) {
+        ByteBuffer source = chunk(from), target = chunk(to);
+        int f = offset(from), t = offset(to);
+        target.putLong(t + PRIORITY, source.getLong(f + PRIORITY));
+        target.putLong(t + SEQUENCE, source.getLong(f + SEQUENCE));
+        target.putLong(t + PAYLOAD, source.getLong(f + PAYLOAD));
+        }
+
+    private void set(long index, long priority, long number, long payload) {
+        ByteBuffer chunk = chunk(index);
+        int at = offset(index);
+        chunk.putLong(at + PRIORITY, priority);
+        chunk.putLong(at + SEQUENCE, number);
+        chunk.putLong(at + PAYLOAD, payload);
+        }
+
+    // Moves the hole at index up until the new entry fits, then fills it
+    private void trickleUp(long index, long priority, long number, long payload) {
+        while (index > 0) {
+            long parent = (index - 1) >>> 1;
+            ByteBuffer chunk = chunk(parent);
+            int at = offset(parent);
+            if (!before(priority, number, chunk.getLong(at + PRIORITY), chunk.getLong(at + SEQUENCE)))
+                break;
+            copy(parent, index);
+            index = parent;
+            }
+        set(index, priority, number, payload);
+        }
+
+    // Moves the hole at index down past the smaller child while that child
+    // comes first, then fills it
+    private void trickleDown(long index, long priority, long number, long payload) {
+        long child;
+        while ((child = (index << 1) + 1) < currentSize) {
+            ByteBuffer chunk = chunk(child);
+            int at = offset(child);
+            long childPriority = chunk.getLong(at + PRIORITY);
+            long childNumber = chunk.getLong(at + SEQUENCE);
+            if (child + 1 < currentSize) {
+                // the right child can start the next chunk
+                ByteBuffer right = chunk(child + 1);
+                int rightAt = offset(child + 1);
+                long rightPriority = right.getLong(rightAt + PRIORITY);
+                long rightNumber = right.getLong(rightAt + SEQUENCE);
+                if (before(rightPriority, rightNumber, childPriority, childNumber)) {
+                    child++;
+                    childPriority = rightPriority;
+                    childNumber = rightNumber;
+                    }
+                }
+            if (!before(childPriority, childNumber, priority, number))
+                break;
+            copy(child, index);
+            index = child;
+            }
+        set(index, priority, number, payload);
+        }
+
+    class IteratorHelper implements PrimitiveIterator.OfLong {
+        long iterIndex;
+        long stateCheck;
+
+        public IteratorHelper() {
+            iterIndex = 0;
+            stateCheck = modificationCounter;
+            }
+
+        public boolean hasNext() {
+            if (stateCheck != modificationCounter)
+                throw new ConcurrentModificationException();
+            return iterIndex < currentSize;
+            }
+
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            long index = iterIndex++;
+            return chunk(index).getLong(offset(index) + PAYLOAD);
+            }
+    }
+}
@@ -0,0 +1,339 @@
+/**
+ *  PairingHeapPriorityQueue
+ *  Implement a FIFO Priority Queue as a pairing heap, a tree of nodes
+ *  where each node's children hang off it in a sibling list. insert links
+ *  a one node tree to the root in O(1) and remove pairs up the root's
+ *  children in amortized O(log n).
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class PairingHeapPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    private Node<E> root;
+    private int currentSize;
+    private long modificationCounter;
+    // every entry number in the heap is at least firstNumber and below
+    // entryNumber, the next one handed out. Both go back to 0 when the
+    // heap empties, so the range never spans more than the inserts made
+    // since the heaps melded into it were last empty.
+    private long entryNumber, firstNumber;
+
+    public PairingHeapPriorityQueue() {
+        root = null;
+        currentSize = 0;
+        modificationCounter = 0;
+        entryNumber = 0;
+        firstNumber = 0;
+        }
+
+    // Inserts a new object into the priority queue. Returns true if
+    // the insertion is successful. If the PQ is full, the insertion
+    // is aborted, and the method returns false.
+    public boolean insert(E object) {
+        root = link(root, new Node<E>(object, entryNumber++));
+        currentSize++;
+        modificationCounter++;
+        return true;
+        }
+
+    // Moves every object in other into this PQ and leaves other empty.
+    // Another PairingHeapPriorityQueue is linked to the root after the
+    // smaller of the two heaps is renumbered in O(min(n, m)), any other
+    // queue is drained. Either way the melded objects go behind equal
+    // ones already here, in the order they had in other. Each heap
+    // numbers its own entries, so one side has to be shifted past the
+    // other for ties to keep that order, a bare O(1) link would mix them.
+    public boolean meld(PriorityQueue<E> other) {
+        if (other == this)
+            throw new IllegalArgumentException("Cannot meld a queue into itself");
+        if (!(other instanceof PairingHeapPriorityQueue)) {
+            while (!other.isEmpty())
+                insert(other.remove());
+            return true;
+            }
+        PairingHeapPriorityQueue<E> o = (PairingHeapPriorityQueue<E>) other;
+        // shift one side's numbers so all of other's come after all of ours
+        if (o.currentSize <= currentSize)
+            o.renumber(entryNumber - o.firstNumber);
+        else
+            renumber(o.firstNumber - entryNumber);
+        entryNumber = o.entryNumber;
+        root = link(root, o.root);
+        currentSize += o.currentSize;
+        modificationCounter++;
+        o.clear();
+        return true;
+        }
+
+    // Removes the object of highest priority that has been in the
+    // PQ the longest, and returns it. Returns null if the PQ is empty.
+    public E remove() {
+        if (isEmpty())
+            return null;
+        E removed = root.data;
+        root = combine(root.child);
+        currentSize--;
+        if (root == null)
+            firstNumber = entryNumber = 0;
+        modificationCounter++;
+        return removed;
+        }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        for (int i = 0; i < n; i++) {
+            c.add(root.data);
+            root = combine(root.child);
+            }
+        if (n > 0) {
+            currentSize -= n;
+            if (root == null)
+                firstNumber = entryNumber = 0;
+            modificationCounter++;
+            }
+        return n;
+        }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
+        }
+
+    // Deletes all instances of the parameter obj from the PQ if found, and
+    // returns true. Returns false if no match to the parameter obj is found.
+    // Finding them is a walk of the whole tree, each one is then cut out
+    // and its children are paired up and linked back to the root.
+    public boolean delete(E obj) {
+        List<Node<E>> matches = new ArrayList<Node<E>>();
+        List<Node<E>> stack = new ArrayList<Node<E>>();
+        if (root != null)
+            stack.add(root);
+        while (!stack.isEmpty()) {
+            Node<E> n = stack.remove(stack.size() - 1);
+            if (n.data.compareTo(obj) == 0)
+                matches.add(n);
+            for (Node<E> child = n.child; child != null; child = child.sibling)
+                stack.add(child);
+            }
+        if (matches.isEmpty())
+            return false;
+        for (Node<E> n : matches) {
+            if (n == root) {
+                root = combine(n.child);
+                continue;
+                }
+            // unlink n from its parent or left sibling
+            if (n.prev.child == n)
+                n.prev.child = n.sibling;
+            else
+                n.prev.sibling = n.sibling;
+            if (n.sibling != null)
+                n.sibling.prev = n.prev;
+            root = link(root, combine(n.child));
+            }
+        currentSize -= matches.size();
+        if (root == null)
+            firstNumber = entryNumber = 0;
+        modificationCounter++;
+        return true;
+        }
+
+    // Returns the object of highest priority that has been in the
+    // PQ the longest, but does NOT remove it.
+    // Returns null if the PQ is empty.
+    public E peek() {
+        if (isEmpty())
+            return null;
+        return root.data;
+        }
+
+    // Returns true if the priority queue contains the specified element
+    // false otherwise.
+    public boolean contains(E obj) {
+        Iterator<E> iter = iterator();
+        while (iter.hasNext())
+            if (iter.next().compareTo(obj) == 0)
+                return true;
+        return false;
+        }
+
+    // Returns the number of objects currently in the PQ.
+    public int size() { return currentSize; }
+
+    // Returns the PQ to an empty state.
+    public void clear() {
+        root = null;
+        currentSize = 0;
+        firstNumber = entryNumber = 0;
+        modificationCounter++;
+        }
+
+    // Returns true if the PQ is empty, otherwise false
+    public boolean isEmpty() { return root == null; }
+
+    // Returns true if the PQ is full, otherwise false. List based
+    // implementations should always return false.
+    public boolean isFull() { return false; }
+
+    // Returns an iterator of the objects in the PQ, in no particular
+    // order.
+    public Iterator<E> iterator() {
+        return new IteratorHelper();
+        }
+
+    // Writes the objects to out in no particular order, each with its
+    // entry number so equal objects keep their order after a restart
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, PairingHeapPriorityQueue.class);
+        writer.writeLong(firstNumber);
+        writer.writeLong(entryNumber);
+        writer.writeInt(currentSize);
+        IteratorHelper nodes = new IteratorHelper();
+        while (!nodes.stack.isEmpty()) {
+            Node<E> n = nodes.nextNode();
+            writer.write(serializer, n.data);
+            writer.writeLong(n.number);
+            }
+        writer.finish();
+        }
+
+    // Reads a PQ written by writeSnapshot(), linking each node to the root
+    // in O(1) as insert does. The first remove afterwards pairs them all
+    // up, which the O(1) links have paid for. Throws IOException if in
+    // does not hold one.
+    public static <E extends Comparable<E>> PairingHeapPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, PairingHeapPriorityQueue.class);
+        PairingHeapPriorityQueue<E> pq = new PairingHeapPriorityQueue<E>();
+        pq.firstNumber = reader.readLong();
+        pq.entryNumber = reader.readLong();
+        int size = reader.readCount();
+        for (int i = 0; i < size; i++)
+            pq.root = link(pq.root, new Node<E>(reader.read(serializer), reader.readLong()));
+        pq.currentSize = size;
+        return pq;
+        }
+
+    // Adds delta to every entry number in the heap, which keeps their order
+    private void renumber(long delta) {
+        IteratorHelper nodes = new IteratorHelper();
+        while (!nodes.stack.isEmpty())
+            nodes.nextNode().number += delta;
+        firstNumber += delta;
+        entryNumber += delta;
+        }
+
+    // Makes the later of two trees the leftmost child of the earlier one
+    // and returns the earlier one. Either may be null.
+    private static <E extends Comparable<E>> Node<E> link(Node<E> a, Node<E> b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        if (b.compareTo(a) < 0) {
+            Node<E> tmp = a;
+            a = b;
+            b = tmp;
+            }
+        b.sibling = a.child;
+        if (a.child != null)
+            a.child.prev = b;
+        b.prev = a;
+        a.child = b;
+        a.sibling = null;
+        a.prev = null;
+        return a;
+        }
+
+    // Two pass pairing of a sibling list into one tree. The first pass
+    // links neighbours left to right and stacks the pairs through their
+    // sibling fields, the second links the pairs back right to left.
+    private static <E extends Comparable<E>> Node<E> combine(Node<E> first) {
+        Node<E> pairs = null;
+        while (first != null) {
+            Node<E> second = first.sibling, next = second == null ? null : second.sibling;
+            Node<E> pair = link(first, second);
+            pair.sibling = pairs;
+            pairs = pair;
+            first = next;
+            }
+        Node<E> result = null;
+        while (pairs != null) {
+            Node<E> next = pairs.sibling;
+            pairs.sibling = null;
+            result = link(pairs, result);
+            pairs = next;
+            }
+        if (result != null)
+            result.prev = null;
+        return result;
+        }
+
+    // Walks the tree with an explicit stack of unvisited nodes
+    class IteratorHelper implements Iterator<E> {
+        List<Node<E>> stack;
+        long stateCheck;
+
+        public IteratorHelper() {
+            stack = new ArrayList<Node<E>>();
+            if (root != null)
+                stack.add(root);
+            stateCheck = modificationCounter;
+            }
+
+        public boolean hasNext() {
+            if (stateCheck != modificationCounter)
+                throw new ConcurrentModificationException();
+            return !stack.isEmpty();
+            }
+
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return nextNode().data;
+            }
+
+        Node<E> nextNode() {
+            Node<E> n = stack.remove(stack.size() - 1);
+            if (n.sibling != null)
+                stack.add(n.sibling);
+            if (n.child != null)
+                stack.add(n.child);
+            return n;
+            }
+    }
+
+    private static class Node<E extends Comparable<E>> implements Comparable<Node<E>> {
+        final E data;
+        long number;
+        Node<E> child, sibling;
+        // parent if this is the leftmost child, otherwise the left sibling
+        Node<E> prev;
+
+        Node(E data, long number) {
+            this.data = data;
+            this.number = number;
+            }
+
+        public int compareTo(Node<E> o) {
+            int cmp = data.compareTo(o.data);
+            return cmp != 0 ? cmp : Long.compare(number, o.number);
+            }
+    }
+}
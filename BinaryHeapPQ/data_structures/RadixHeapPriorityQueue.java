@@ -0,0 +1,326 @@
+/**
+ *  RadixHeapPriorityQueue
+ *  Implement a FIFO Priority Queue for monotone integer priorities, such
+ *  as the timestamps of a simulation that never goes back in time. Objects
+ *  are kept in 65 buckets by the highest bit where their priority differs
+ *  from the last one removed. remove only has to sort out the lowest non
+ *  empty bucket, which makes it amortized O(log C) for priorities spread
+ *  over a range of C.
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+@SuppressWarnings("unchecked")
+public class RadixHeapPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    private static final int BUCKETS = 65;
+    // reads the integer priority of an object, it must order objects the
+    // same way compareTo does
+    private final ToLongFunction<? super E> priority;
+    private final Bucket[] buckets;
+    // priority of the last object removed, nothing lower may be inserted
+    // until the PQ is empty again
+    private long last;
+    private int currentSize;
+    private long modificationCounter;
+    // object peek() last found and its priority, null once it may be stale
+    private E next;
+    private long nextKey;
+
+    // priority gives each object's integer priority, lower comes out first
+    public RadixHeapPriorityQueue(ToLongFunction<? super E> priority) {
+        this.priority = priority;
+        buckets = new Bucket[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new Bucket();
+        last = Long.MIN_VALUE;
+        currentSize = 0;
+        modificationCounter = 0;
+        }
+
+    // Inserts a new object into the priority queue. Returns true if
+    // the insertion is successful. If the PQ is full, the insertion
+    // is aborted, and the method returns false.
+    // Throws IllegalArgumentException if the PQ is not empty and the
+    // object's priority is lower than the last one removed.
+    public boolean insert(E object) {
+        long key = priority.applyAsLong(object);
+        if (key < last) {
+            if (currentSize > 0)
+                throw new IllegalArgumentException("Priority " + key + " is below the last removed " + last);
+            last = key;
+            }
+        buckets[bucketFor(key)].add(key, object);
+        if (next != null && key < nextKey) {
+            next = object;
+            nextKey = key;
+            }
+        currentSize++;
+        modificationCounter++;
+        return true;
+        }
+
+    // Removes the object of highest priority that has been in the
+    // PQ the longest, and returns it. Returns null if the PQ is empty.
+    public E remove() {
+        if (isEmpty())
+            return null;
+        fillFirstBucket();
+        next = null;
+        currentSize--;
+        modificationCounter++;
+        return (E) buckets[0].poll();
+        }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        for (int i = 0; i < n; i++) {
+            fillFirstBucket();
+            c.add((E) buckets[0].poll());
+            }
+        if (n > 0) {
+            next = null;
+            currentSize -= n;
+            modificationCounter++;
+            }
+        return n;
+        }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
+        }
+
+    // Deletes all instances of the parameter obj from the PQ if found, and
+    // returns true. Returns false if no match to the parameter obj is found.
+    public boolean delete(E obj) {
+        int deleted = 0;
+        for (Bucket bucket : buckets)
+            deleted += bucket.removeIf(obj);
+        if (deleted == 0)
+            return false;
+        next = null;
+        currentSize -= deleted;
+        modificationCounter++;
+        return true;
+        }
+
+    // Returns the object of highest priority that has been in the
+    // PQ the longest, but does NOT remove it.
+    // Returns null if the PQ is empty. When bucket 0 is empty this scans
+    // the lowest non empty bucket but leaves it as it is, since moving
+    // last up would refuse inserts between it and the last one removed.
+    // The answer is kept until the next remove or delete.
+    public E peek() {
+        if (isEmpty())
+            return null;
+        if (next != null)
+            return next;
+        int i = 0;
+        while (buckets[i].head == buckets[i].size)
+            i++;
+        Bucket bucket = buckets[i];
+        int first = bucket.head;
+        for (int j = first + 1; j < bucket.size; j++)
+            if (bucket.keys[j] < bucket.keys[first])
+                first = j;
+        next = (E) bucket.items[first];
+        nextKey = bucket.keys[first];
+        return next;
+        }
+
+    // Returns true if the priority queue contains the specified element
+    // false otherwise.
+    public boolean contains(E obj) {
+        for (Bucket bucket : buckets)
+            for (int i = bucket.head; i < bucket.size; i++)
+                if (((E) bucket.items[i]).compareTo(obj) == 0)
+                    return true;
+        return false;
+        }
+
+    // Returns the number of objects currently in the PQ.
+    public int size() { return currentSize; }
+
+    // Returns the PQ to an empty state.
+    public void clear() {
+        for (Bucket bucket : buckets)
+            bucket.clear();
+        last = Long.MIN_VALUE;
+        next = null;
+        currentSize = 0;
+        modificationCounter++;
+        }
+
+    // Returns true if the PQ is empty, otherwise false
+    public boolean isEmpty() { return currentSize == 0; }
+
+    // Returns true if the PQ is full, otherwise false. List based
+    // implementations should always return false.
+    public boolean isFull() { return false; }
+
+    // Returns an iterator of the objects in the PQ, in no particular
+    // order.
+    public Iterator<E> iterator() {
+        return new IteratorHelper();
+        }
+
+    // Writes the last priority removed and every bucket to out, objects in
+    // the order they sit in their bucket, which is all FIFO order needs
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, RadixHeapPriorityQueue.class);
+        writer.writeLong(last);
+        for (Bucket bucket : buckets) {
+            writer.writeInt(bucket.size - bucket.head);
+            for (int j = bucket.head; j < bucket.size; j++) {
+                writer.writeLong(bucket.keys[j]);
+                writer.write(serializer, (E) bucket.items[j]);
+                }
+            }
+        writer.finish();
+        }
+
+    // Reads a PQ written by writeSnapshot() back into the same buckets in
+    // O(n). priority must be the function the PQ was built with. Throws
+    // IOException if in does not hold one.
+    public static <E extends Comparable<E>> RadixHeapPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer, ToLongFunction<? super E> priority)
+            throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, RadixHeapPriorityQueue.class);
+        RadixHeapPriorityQueue<E> pq = new RadixHeapPriorityQueue<E>(priority);
+        pq.last = reader.readLong();
+        for (Bucket bucket : pq.buckets) {
+            int count = reader.readCount();
+            for (int j = 0; j < count; j++)
+                bucket.add(reader.readLong(), reader.read(serializer));
+            pq.currentSize += count;
+            }
+        return pq;
+        }
+
+    // Bucket 0 holds priorities equal to last, bucket i holds those whose
+    // highest bit differing from last is bit i - 1
+    private int bucketFor(long key) {
+        return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+        }
+
+    // If bucket 0 is empty, moves last up to the lowest priority in the
+    // first non empty bucket and spreads that bucket over the lower ones.
+    // Objects keep their order, so equal priorities stay first in first out.
+    private void fillFirstBucket() {
+        if (buckets[0].head < buckets[0].size)
+            return;
+        int i = 1;
+        while (buckets[i].head == buckets[i].size)
+            i++;
+        Bucket bucket = buckets[i];
+        long min = Long.MAX_VALUE;
+        for (int j = bucket.head; j < bucket.size; j++)
+            min = Math.min(min, bucket.keys[j]);
+        last = min;
+        for (int j = bucket.head; j < bucket.size; j++)
+            buckets[bucketFor(bucket.keys[j])].add(bucket.keys[j], bucket.items[j]);
+        bucket.clear();
+        }
+
+    // Growable array of priorities and objects in insertion order. Objects
+    // are polled from the front by moving head.
+    private static class Bucket {
+        long[] keys = new long[4];
+        Object[] items = new Object[4];
+        int head, size;
+
+        void add(long key, Object item) {
+            if (size == keys.length) {
+                if (head > 0) {
+                    // slide the live part back to the front before growing
+                    int live = size - head;
+                    System.arraycopy(keys, head, keys, 0, live);
+                    System.arraycopy(items, head, items, 0, live);
+                    Arrays.fill(items, live, size, null);
+                    head = 0;
+                    size = live;
+                    }
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size << 1);
+                    items = Arrays.copyOf(items, size << 1);
+                    }
+                }
+            keys[size] = key;
+            items[size++] = item;
+            }
+
+        Object poll() {
+            Object item = items[head];
+            items[head++] = null;
+            if (head == size)
+                head = size = 0;
+            return item;
+            }
+
+        // Drops every object equal to obj and returns how many
+        @SuppressWarnings("unchecked")
+        <E extends Comparable<E>> int removeIf(E obj) {
+            int kept = head;
+            for (int i = head; i < size; i++)
+                if (((E) items[i]).compareTo(obj) != 0) {
+                    keys[kept] = keys[i];
+                    items[kept++] = items[i];
+                    }
+            int removed = size - kept;
+            Arrays.fill(items, kept, size, null);
+            size = kept;
+            if (head == size)
+                head = size = 0;
+            return removed;
+            }
+
+        void clear() {
+            Arrays.fill(items, head, size, null);
+            head = size = 0;
+            }
+    }
+
+    class IteratorHelper implements Iterator<E> {
+        int bucket, index;
+        long stateCheck;
+
+        public IteratorHelper() {
+            bucket = 0;
+            index = buckets[0].head;
+            stateCheck = modificationCounter;
+            }
+
+        public boolean hasNext() {
+            if (stateCheck != modificationCounter)
+                throw new ConcurrentModificationException();
+            while (bucket < BUCKETS && index >= buckets[bucket].size)
+                if (++bucket < BUCKETS)
+                    index = buckets[bucket].head;
+            return bucket < BUCKETS;
+            }
+
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return (E) buckets[bucket].items[index++];
+            }
+    }
+}
@@ -0,0 +1,377 @@
+ /**
+       *  AVLTreeDictionary
+       *  Create a Dictionary structure using a self balancing AVL tree
+       *  with iterative put, get and delete so sorted input keeps the
+       *  height at O(log n)
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class AVLTreeDictionary<K, V> implements DictionaryADT<K, V> {
+    // an AVL tree with n nodes is under 1.45 log2(n + 2) high, so any int size fits
+    private static final int MAX_HEIGHT = 48;
+    private Node<K, V> root;
+    private int currentSize;
+    private long modCounter;
+    // ancestors of the node being inserted or deleted, reused between calls
+    private Node<K, V>[] path;
+    // value to key index for getKey(), null unless requested in the constructor
+    private ReverseIndex<K, V> reverseIndex;
+
+    public AVLTreeDictionary() {
+        this(false);
+    }
+
+    // indexValues keeps a value to key index so getKey() does not scan
+    public AVLTreeDictionary(boolean indexValues) {
+        root = null;
+        currentSize = 0;
+        modCounter = 0;
+        path = new Node[MAX_HEIGHT];
+        if (indexValues)
+            reverseIndex = new ReverseIndex<K, V>();
+    }
+
+    // Adds the given key/value pair to the dictionary. Returns
+    // false if the dictionary is full, or if the key is a duplicate.
+    // Returns true if addition succeeded.
+    public boolean put(K key, V value) {
+        if (root == null) {
+            root = new Node<K, V>(key, value);
+            if (reverseIndex != null)
+                reverseIndex.add(key, value);
+            currentSize++;
+            modCounter++;
+            return true;
+        }
+        Comparable<K> k = (Comparable<K>) key;
+        int depth = 0, cmp = 0;
+        Node<K, V> n = root;
+        while (n != null) {
+            cmp = k.compareTo(n.key);
+            if (cmp == 0)
+                return false;
+            path[depth++] = n;
+            n = cmp < 0 ? n.leftChild : n.rightChild;
+        }
+        if (cmp < 0)
+            path[depth - 1].leftChild = new Node<K, V>(key, value);
+        else
+            path[depth - 1].rightChild = new Node<K, V>(key, value);
+        rebalance(depth);
+        if (reverseIndex != null)
+            reverseIndex.add(key, value);
+        currentSize++;
+        modCounter++;
+        return true;
+    }
+
+    // Deletes the key/value pair identified by the key parameter.
+    // Returns true if the key/value pair was found and removed,
+    // otherwise false.
+    public boolean delete(K key) {
+        Comparable<K> k = (Comparable<K>) key;
+        int depth = 0;
+        Node<K, V> n = root;
+        while (n != null) {
+            int cmp = k.compareTo(n.key);
+            if (cmp == 0)
+                break;
+            path[depth++] = n;
+            n = cmp < 0 ? n.leftChild : n.rightChild;
+        }
+        if (n == null) {
+            Arrays.fill(path, 0, depth, null);
+            return false;
+        }
+        if (reverseIndex != null)
+            reverseIndex.remove(n.key, n.value);
+        if (n.leftChild != null && n.rightChild != null) {
+            // two children, move the inorder successor up and unlink it instead
+            path[depth++] = n;
+            Node<K, V> successor = n.rightChild;
+            while (successor.leftChild != null) {
+                path[depth++] = successor;
+                successor = successor.leftChild;
+            }
+            n.key = successor.key;
+            n.value = successor.value;
+            n = successor;
+        }
+        Node<K, V> child = n.leftChild != null ? n.leftChild : n.rightChild;
+        if (depth == 0)
+            root = child;
+        else if (path[depth - 1].leftChild == n)
+            path[depth - 1].leftChild = child;
+        else
+            path[depth - 1].rightChild = child;
+        rebalance(depth);
+        currentSize--;
+        modCounter++;
+        return true;
+    }
+
+    // Returns the value associated with the parameter key. Returns
+    // null if the key is not found or the dictionary is empty.
+    public V get(K key) {
+        Comparable<K> k = (Comparable<K>) key;
+        Node<K, V> n = root;
+        while (n != null) {
+            int cmp = k.compareTo(n.key);
+            if (cmp == 0)
+                return n.value;
+            n = cmp < 0 ? n.leftChild : n.rightChild;
+        }
+        return null;
+    }
+
+    // Returns the key associated with the parameter value. Returns
+    // null if the value is not found in the dictionary. If more
+    // than one key exists that matches the given value, returns the
+    // first one found.
+    public K getKey(V value) {
+        if (reverseIndex != null)
+            return reverseIndex.first(value);
+        // the tree is ordered by key, so finding a value is an inorder scan
+        NodeIterator iter = new NodeIterator();
+        while (iter.hasNext()) {
+            Node<K, V> n = iter.nextNode();
+            if (((Comparable<V>) value).compareTo(n.value) == 0)
+                return n.key;
+        }
+        return null;
+    }
+
+    // Returns the number of key/value pairs currently stored
+    // in the dictionary
+    public int size() {
+        return currentSize;
+    }
+
+    // Returns true if the dictionary is full
+    public boolean isFull() {
+        return false;
+    }
+
+    // Returns true if the dictionary is empty
+    public boolean isEmpty() {
+        return currentSize == 0;
+    }
+
+    // Makes the dictionary empty
+    public void clear() {
+        root = null;
+        currentSize = 0;
+        modCounter++;
+        if (reverseIndex != null)
+            reverseIndex.clear();
+    }
+
+    // Returns an Iterator of the keys in the dictionary, in ascending
+    // sorted order
+    public Iterator<K> keys() {
+        return new KeyIteratorHelper();
+    }
+
+    // Returns an Iterator of the values in the dictionary. The
+    // order of the values must match the order of the keys.
+    public Iterator<V> values() {
+        return new ValueIteratorHelper();
+    }
+
+    // Writes whether values are indexed and the pairs in ascending key
+    // order to out, keys and values at the width of their serializers
+    public void writeSnapshot(WritableByteChannel out, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, AVLTreeDictionary.class);
+        writer.writeBoolean(reverseIndex != null);
+        writer.writeInt(currentSize);
+        for (NodeIterator iter = new NodeIterator(); iter.hasNext();) {
+            Node<K, V> n = iter.nextNode();
+            writer.write(keySerializer, n.key);
+            writer.writeBoolean(n.value != null);
+            if (n.value != null)
+                writer.write(valueSerializer, n.value);
+        }
+        writer.finish();
+    }
+
+    // Reads a tree written by writeSnapshot(). The keys arrive sorted, so
+    // the tree is built perfectly balanced in O(n) with no rotations.
+    // Throws IOException if in does not hold one.
+    public static <K, V> AVLTreeDictionary<K, V> readSnapshot(ReadableByteChannel in,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, AVLTreeDictionary.class);
+        AVLTreeDictionary<K, V> tree = new AVLTreeDictionary<K, V>(reader.readBoolean());
+        int size = reader.readCount();
+        Object[] keys = new Object[size], values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = reader.read(keySerializer);
+            if (i > 0 && ((Comparable<K>) keys[i - 1]).compareTo((K) keys[i]) >= 0)
+                throw new IOException("Corrupt snapshot, keys out of order at " + i);
+            values[i] = reader.readBoolean() ? reader.read(valueSerializer) : null;
+            if (tree.reverseIndex != null)
+                tree.reverseIndex.add((K) keys[i], (V) values[i]);
+        }
+        tree.root = build(keys, values, 0, size);
+        tree.currentSize = size;
+        return tree;
+    }
+
+    // Builds a balanced subtree of the sorted pairs from lo inclusive to
+    // hi exclusive, rooted at the middle one. The halves differ in size by
+    // at most one, so every balance factor is 0 or 1.
+    private static <K, V> Node<K, V> build(Object[] keys, Object[] values, int lo, int hi) {
+        if (lo >= hi)
+            return null;
+        int mid = (lo + hi) >>> 1;
+        Node<K, V> n = new Node<K, V>((K) keys[mid], (V) values[mid]);
+        n.leftChild = build(keys, values, lo, mid);
+        n.rightChild = build(keys, values, mid + 1, hi);
+        updateHeight(n);
+        return n;
+    }
+
+    // Walks back up the recorded path fixing heights and rotating where
+    // the balance factor reaches 2. Stops early once a subtree's height
+    // is unchanged since nothing above it can have moved.
+    private void rebalance(int depth) {
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            Node<K, V> n = path[i];
+            int oldHeight = n.height;
+            Node<K, V> balanced = balance(n);
+            if (balanced != n) {
+                if (i == 0)
+                    root = balanced;
+                else if (path[i - 1].leftChild == n)
+                    path[i - 1].leftChild = balanced;
+                else
+                    path[i - 1].rightChild = balanced;
+            }
+            path[i] = null;
+            if (balanced.height == oldHeight)
+                break;
+        }
+        Arrays.fill(path, 0, Math.max(i, 0), null);
+    }
+
+    private Node<K, V> balance(Node<K, V> n) {
+        updateHeight(n);
+        int factor = height(n.leftChild) - height(n.rightChild);
+        if (factor > 1) {
+            if (height(n.leftChild.leftChild) < height(n.leftChild.rightChild))
+                n.leftChild = rotateLeft(n.leftChild);
+            return rotateRight(n);
+        }
+        if (factor < -1) {
+            if (height(n.rightChild.rightChild) < height(n.rightChild.leftChild))
+                n.rightChild = rotateRight(n.rightChild);
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private Node<K, V> rotateRight(Node<K, V> n) {
+        Node<K, V> left = n.leftChild;
+        n.leftChild = left.rightChild;
+        left.rightChild = n;
+        updateHeight(n);
+        updateHeight(left);
+        return left;
+    }
+
+    private Node<K, V> rotateLeft(Node<K, V> n) {
+        Node<K, V> right = n.rightChild;
+        n.rightChild = right.leftChild;
+        right.leftChild = n;
+        updateHeight(n);
+        updateHeight(right);
+        return right;
+    }
+
+    private static int height(Node<?, ?> n) {
+        return n == null ? 0 : n.height;
+    }
+
+    private static void updateHeight(Node<?, ?> n) {
+        n.height = 1 + Math.max(height(n.leftChild), height(n.rightChild));
+    }
+
+    // Lazy inorder walk holding only the current path in an explicit stack
+    class NodeIterator {
+        private Node<K, V>[] stack;
+        private int top;
+        private long modCheck;
+
+        public NodeIterator() {
+            stack = new Node[MAX_HEIGHT];
+            top = 0;
+            modCheck = modCounter;
+            pushLeft(root);
+        }
+
+        public boolean hasNext() {
+            if (modCheck != modCounter)
+                throw new ConcurrentModificationException();
+            return top > 0;
+        }
+
+        public Node<K, V> nextNode() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Node<K, V> n = stack[--top];
+            stack[top] = null;
+            pushLeft(n.rightChild);
+            return n;
+        }
+
+        private void pushLeft(Node<K, V> n) {
+            for (; n != null; n = n.leftChild)
+                stack[top++] = n;
+        }
+    }
+
+    abstract class IteratorHelper<E> extends NodeIterator implements Iterator<E> {
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    class KeyIteratorHelper extends IteratorHelper<K> {
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    class ValueIteratorHelper extends IteratorHelper<V> {
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
+    private static class Node<K, V> {
+        private K key;
+        private V value;
+        private Node<K, V> leftChild;
+        private Node<K, V> rightChild;
+        private int height;
+
+        public Node(K k, V v) {
+            key = k;
+            value = v;
+            leftChild = rightChild = null;
+            height = 1;
+        }
+    }
+}
@@ -8,17 +8,32 @@
        */
 package data_structures;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 @SuppressWarnings("unchecked")
-public class BalancedTreeDictionary<K, V> implements DictionaryADT<K, V> {
+public class BalancedTreeDictionary<K, V> implements OrderedDictionaryADT<K, V> {
     private TreeMap<K, V> redBlackTree;
+    // value to key index for getKey(), null unless requested in the constructor
+    private ReverseIndex<K, V> reverseIndex;
 
     public BalancedTreeDictionary() {
+        this(false);
+    }
+
+    // indexValues keeps a value to key index so getKey() does not scan
+    public BalancedTreeDictionary(boolean indexValues) {
         redBlackTree = new TreeMap();
+        if (indexValues)
+            reverseIndex = new ReverseIndex<K, V>();
     }
 
     // Adds the given key/value pair to the dictionary. Returns
@@ -29,6 +44,8 @@ public class BalancedTreeDictionary<K, V> implements DictionaryADT<K, V> {
             return false;
         }
         redBlackTree.put(key, value);
+        if (reverseIndex != null)
+            reverseIndex.add(key, value);
         return true;
     }
 
@@ -36,9 +53,12 @@ public class BalancedTreeDictionary<K, V> implements DictionaryADT<K, V> {
     // Returns true if the key/value pair was found and removed,
     // otherwise false.
     public boolean delete(K key) {
-        if (isEmpty() || redBlackTree.remove(key) == null) {
+        if (isEmpty() || !redBlackTree.containsKey(key)) {
             return false;
         }
+        V value = redBlackTree.remove(key);
+        if (reverseIndex != null)
+            reverseIndex.remove(key, value);
         return true;
     }
 
@@ -56,11 +76,11 @@ public class BalancedTreeDictionary<K, V> implements DictionaryADT<K, V> {
     // than one key exists that matches the given value, returns the
     // first one found.
     public K getKey(V value) {
-        Iterator<K> key = keys();
-        Iterator<V> val = values();
-        while (key.hasNext() && val.hasNext()) {
-            if (((Comparable<V>) value).compareTo(val.next()) == 0) {
-                return key.next();
+        if (reverseIndex != null)
+            return reverseIndex.first(value);
+        for (Map.Entry<K, V> entry : redBlackTree.entrySet()) {
+            if (((Comparable<V>) value).compareTo(entry.getValue()) == 0) {
+                return entry.getKey();
             }
         }
         return null;
@@ -85,17 +105,112 @@ public class BalancedTreeDictionary<K, V> implements DictionaryADT<K, V> {
     // Makes the dictionary empty
     public void clear() {
         redBlackTree.clear();
+        if (reverseIndex != null)
+            reverseIndex.clear();
     }
 
     // Returns an Iterator of the keys in the dictionary, in ascending
     // sorted order
     public Iterator<K> keys() {
-        return redBlackTree.keySet().iterator();
+        // unmodifiable so a remove through the iterator can't skip the reverse index
+        return Collections.unmodifiableSet(redBlackTree.keySet()).iterator();
     }
 
     // Returns an Iterator of the values in the dictionary. The
     // order of the values must match the order of the keys.
     public Iterator<V> values() {
-        return redBlackTree.values().iterator();
+        return Collections.unmodifiableCollection(redBlackTree.values()).iterator();
+    }
+
+    // Writes whether values are indexed and the pairs in ascending key
+    // order to out, keys and values at the width of their serializers
+    public void writeSnapshot(WritableByteChannel out, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, BalancedTreeDictionary.class);
+        writer.writeBoolean(reverseIndex != null);
+        writer.writeInt(redBlackTree.size());
+        for (Map.Entry<K, V> e : redBlackTree.entrySet()) {
+            writer.write(keySerializer, e.getKey());
+            writer.writeBoolean(e.getValue() != null);
+            if (e.getValue() != null) {
+                writer.write(valueSerializer, e.getValue());
+            }
+        }
+        writer.finish();
+    }
+
+    // Reads a tree written by writeSnapshot(). TreeMap only builds from
+    // sorted input in O(n) when copying another SortedMap, so the pairs
+    // are put one at a time in O(n log n). Throws IOException if in does
+    // not hold one.
+    public static <K, V> BalancedTreeDictionary<K, V> readSnapshot(ReadableByteChannel in,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, BalancedTreeDictionary.class);
+        BalancedTreeDictionary<K, V> tree = new BalancedTreeDictionary<K, V>(reader.readBoolean());
+        int size = reader.readCount();
+        for (int i = 0; i < size; i++) {
+            K key = reader.read(keySerializer);
+            V value = reader.readBoolean() ? reader.read(valueSerializer) : null;
+            if (!tree.put(key, value)) {
+                throw new IOException("Corrupt snapshot, duplicate key " + key);
+            }
+        }
+        return tree;
+    }
+
+    // Returns the largest key less than or equal to the parameter key.
+    // Returns null if there is no such key.
+    public K floorKey(K key) {
+        return redBlackTree.floorKey(key);
+    }
+
+    // Returns the smallest key greater than or equal to the parameter key.
+    // Returns null if there is no such key.
+    public K ceilingKey(K key) {
+        return redBlackTree.ceilingKey(key);
+    }
+
+    // Returns an Iterator of the keys from fromKey inclusive to toKey
+    // exclusive, in ascending sorted order. Keys are found as the
+    // iterator advances, not copied up front.
+    public Iterator<K> range(K fromKey, K toKey) {
+        // unmodifiable so a remove through the iterator can't skip the reverse index
+        return Collections.unmodifiableSet(redBlackTree.subMap(fromKey, true, toKey, false).keySet()).iterator();
+    }
+
+    // Returns a read only view of the pairs whose keys are less than
+    // toKey. Later changes to the dictionary show through it.
+    public SortedMap<K, V> headMap(K toKey) {
+        return Collections.unmodifiableSortedMap(redBlackTree.headMap(toKey));
+    }
+
+    // Returns a read only view of the pairs whose keys are greater than
+    // or equal to fromKey. Later changes to the dictionary show through it.
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return Collections.unmodifiableSortedMap(redBlackTree.tailMap(fromKey));
+    }
+
+    // Returns the number of keys less than the parameter key. TreeMap does
+    // not keep subtree sizes, so this counts the head map in O(n).
+    public int rank(K key) {
+        return redBlackTree.headMap(key).size();
+    }
+
+    // Returns the key with the given rank, the smallest key being rank 0.
+    // Returns null if rank is negative or not less than size(). TreeMap
+    // has no index either, so this walks in from the nearer end.
+    public K select(int rank) {
+        int size = redBlackTree.size();
+        if (rank < 0 || rank >= size) {
+            return null;
+        }
+        Iterator<K> iter = rank < size / 2
+                ? redBlackTree.keySet().iterator()
+                : redBlackTree.descendingKeySet().iterator();
+        int steps = rank < size / 2 ? rank : size - 1 - rank;
+        for (int i = 0; i < steps; i++) {
+            iter.next();
+        }
+        return iter.next();
     }
 }
\ No newline at end of file
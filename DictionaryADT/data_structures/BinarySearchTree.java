@@ -7,21 +7,40 @@
        */
 package data_structures;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
 
 @SuppressWarnings("unchecked")
-public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
+public class BinarySearchTree<K, V> implements OrderedDictionaryADT<K, V> {
     private int currentSize;
     private long modCounter;
     private Node<K, V> root;
     boolean usedSuccessorLast;
+    // value to key index for getKey(), null unless requested in the constructor
+    private ReverseIndex<K, V> reverseIndex;
 
     public BinarySearchTree() {
+        this(false);
+        }
+
+    // indexValues keeps a value to key index so getKey() does not scan
+    public BinarySearchTree(boolean indexValues) {
         root = null;
         currentSize = 0;
         modCounter = 0;
+        if (indexValues)
+            reverseIndex = new ReverseIndex<K, V>();
         }
 
     // Adds the given key/value pair to the dictionary. Returns
@@ -29,12 +48,14 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
     // Returns true if addition succeeded.
     // From Riggins course reader
     public boolean put(K key, V value) {
-        if (findKey(value, root) != null) 
+        if (findNode(key, root) != null) 
             return false;
         if (root == null)
             root = new Node<K, V>(key, value);
         else 
             insert(key, value, root, null, false);
+        if (reverseIndex != null)
+            reverseIndex.add(key, value);
         currentSize++;
         modCounter++;
         return true;
@@ -44,10 +65,12 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
     // Returns true if the key/value pair was found and deleted,
     // otherwise false.
     public boolean delete(K key) {
-        if (isEmpty() || root == null)
+        Node<K, V> found;
+        if (isEmpty() || (found = findNode(key, root)) == null)
             return false;
-        else
-            delete(key, root, null, false);
+        if (reverseIndex != null)
+            reverseIndex.remove(found.key, found.value);
+        delete(key, root, null, false);
         currentSize--;
         modCounter++;
         return true;
@@ -68,7 +91,16 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
     public K getKey(V value) {
         if (isEmpty()) 
             return null;
-        return findKey(value, root);
+        if (reverseIndex != null)
+            return reverseIndex.first(value);
+        // the tree is ordered by key, so finding a value is an inorder scan
+        RangeIterator iter = new RangeIterator(null, null);
+        while (iter.hasNext()) {
+            Node<K, V> n = iter.nextNode();
+            if (((Comparable<V>) value).compareTo(n.value) == 0)
+                return n.key;
+            }
+        return null;
         }
 
     // Returns the number of key/value pairs currently stored
@@ -85,38 +117,212 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
     public void clear() {
         root = null;
         currentSize = 0;
-        modCounter = 0;
+        modCounter++;
+        if (reverseIndex != null)
+            reverseIndex.clear();
         }
 
     // Returns an Iterator of the keys in the dictionary, in ascending
     // sorted order
     public Iterator<K> keys() {
-        return new KeyIteratorHelper();
+        return new KeyIteratorHelper(null, null);
         }
 
     // Returns an Iterator of the values in the dictionary. The
     // order of the values must match the order of the keys.
     public Iterator<V> values() {
-        return new ValueIteratorHelper();
+        return new ValueIteratorHelper(null, null);
         }
 
-    // From Riggins course reader
+    // Returns an Iterator of the keys greater than or equal to fromKey,
+    // in ascending sorted order
+    public Iterator<K> keys(K fromKey) {
+        return new KeyIteratorHelper(fromKey, null);
+        }
+
+    // Returns an Iterator of the values whose keys are greater than or
+    // equal to fromKey, in the same order as keys(fromKey)
+    public Iterator<V> values(K fromKey) {
+        return new ValueIteratorHelper(fromKey, null);
+        }
+
+    // Returns the largest key less than or equal to the parameter key.
+    // Returns null if there is no such key.
+    public K floorKey(K key) {
+        Node<K, V> n = root, best = null;
+        while (n != null) {
+            int cmp = ((Comparable<K>) key).compareTo(n.key);
+            if (cmp == 0)
+                return n.key;
+            if (cmp < 0)
+                n = n.leftChild;
+            else {
+                best = n;
+                n = n.rightChild;
+                }
+            }
+        return best == null ? null : best.key;
+        }
+
+    // Returns the smallest key greater than or equal to the parameter key.
+    // Returns null if there is no such key.
+    public K ceilingKey(K key) {
+        Node<K, V> n = root, best = null;
+        while (n != null) {
+            int cmp = ((Comparable<K>) key).compareTo(n.key);
+            if (cmp == 0)
+                return n.key;
+            if (cmp > 0)
+                n = n.rightChild;
+            else {
+                best = n;
+                n = n.leftChild;
+                }
+            }
+        return best == null ? null : best.key;
+        }
+
+    // Returns an Iterator of the keys from fromKey inclusive to toKey
+    // exclusive, in ascending sorted order. Keys are found as the
+    // iterator advances, not copied up front.
+    public Iterator<K> range(K fromKey, K toKey) {
+        return new KeyIteratorHelper(fromKey, toKey);
+        }
+
+    // Returns a read only view of the pairs whose keys are less than
+    // toKey. Later changes to the dictionary show through it.
+    public SortedMap<K, V> headMap(K toKey) {
+        return new SubMap(null, toKey);
+        }
+
+    // Returns a read only view of the pairs whose keys are greater than
+    // or equal to fromKey. Later changes to the dictionary show through it.
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return new SubMap(fromKey, null);
+        }
+
+    // Returns the number of keys less than the parameter key. Each node
+    // knows the size of its subtree, so this is one walk down the tree.
+    public int rank(K key) {
+        int rank = 0;
+        Node<K, V> n = root;
+        while (n != null) {
+            int cmp = ((Comparable<K>) key).compareTo(n.key);
+            if (cmp <= 0) {
+                if (cmp == 0)
+                    return rank + size(n.leftChild);
+                n = n.leftChild;
+                }
+            else {
+                rank += size(n.leftChild) + 1;
+                n = n.rightChild;
+                }
+            }
+        return rank;
+        }
+
+    // Returns the key with the given rank, the smallest key being rank 0.
+    // Returns null if rank is negative or not less than size().
+    public K select(int rank) {
+        if (rank < 0 || rank >= currentSize)
+            return null;
+        Node<K, V> n = root;
+        while (true) {
+            int left = size(n.leftChild);
+            if (rank == left)
+                return n.key;
+            if (rank < left)
+                n = n.leftChild;
+            else {
+                rank -= left + 1;
+                n = n.rightChild;
+                }
+            }
+        }
+
+    // Writes whether values are indexed and the pairs in ascending key
+    // order to out, keys and values at the width of their serializers
+    public void writeSnapshot(WritableByteChannel out, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, BinarySearchTree.class);
+        writer.writeBoolean(reverseIndex != null);
+        writer.writeInt(currentSize);
+        for (RangeIterator iter = new RangeIterator(null, null); iter.hasNext();) {
+            Node<K, V> n = iter.nextNode();
+            writer.write(keySerializer, n.key);
+            writer.writeBoolean(n.value != null);
+            if (n.value != null)
+                writer.write(valueSerializer, n.value);
+            }
+        writer.finish();
+        }
+
+    // Reads a tree written by writeSnapshot(). The keys arrive sorted, so
+    // the tree is built perfectly balanced in O(n) instead of degenerating
+    // into a list as sorted puts would. Throws IOException if in does not
+    // hold one.
+    public static <K, V> BinarySearchTree<K, V> readSnapshot(ReadableByteChannel in,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, BinarySearchTree.class);
+        BinarySearchTree<K, V> tree = new BinarySearchTree<K, V>(reader.readBoolean());
+        int size = reader.readCount();
+        Object[] keys = new Object[size], values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = reader.read(keySerializer);
+            if (i > 0 && ((Comparable<K>) keys[i - 1]).compareTo((K) keys[i]) >= 0)
+                throw new IOException("Corrupt snapshot, keys out of order at " + i);
+            values[i] = reader.readBoolean() ? reader.read(valueSerializer) : null;
+            if (tree.reverseIndex != null)
+                tree.reverseIndex.add((K) keys[i], (V) values[i]);
+            }
+        tree.root = tree.build(keys, values, 0, size);
+        tree.currentSize = size;
+        return tree;
+        }
+
+    // Builds a balanced subtree of the sorted pairs from lo inclusive to
+    // hi exclusive, rooted at the middle one
+    private Node<K, V> build(Object[] keys, Object[] values, int lo, int hi) {
+        if (lo >= hi)
+            return null;
+        int mid = (lo + hi) >>> 1;
+        Node<K, V> n = new Node<K, V>((K) keys[mid], (V) values[mid]);
+        n.leftChild = build(keys, values, lo, mid);
+        n.rightChild = build(keys, values, mid + 1, hi);
+        n.size = hi - lo;
+        return n;
+        }
+
+    // Number of nodes in the subtree under n
+    private int size(Node<K, V> n) {
+        return n == null ? 0 : n.size;
+        }
+
+    // From Riggins course reader. Only called for a new key, so every
+    // node passed on the way down gains one descendant.
     private void insert(K k, V v, Node<K, V> n, Node<K, V> parent, boolean wasLeft) {
         if (n == null)
             if (wasLeft)
                 parent.leftChild = new Node<K, V>(k, v);
             else 
                 parent.rightChild = new Node<K, V>(k, v);
-        else if (((Comparable<K>) k).compareTo((K) n.key) < 0) 
+        else if (((Comparable<K>) k).compareTo((K) n.key) < 0) {
+            n.size++;
             insert(k, v, n.leftChild, n, true);
-        else 
+            }
+        else {
+            n.size++;
             insert(k, v, n.rightChild, n, false);
+            }
         }
 
+    // Only called for a key that is in the tree, so every node passed on
+    // the way down loses one descendant
     private void delete(K k, Node<K, V> n, Node<K, V> parent, boolean wasLeft) {
         if (n == null) 
             return;
-        else if (((Comparable<K>) k).compareTo(n.key) < 0) 
+        n.size--;
+        if (((Comparable<K>) k).compareTo(n.key) < 0) 
             delete(k, n.leftChild, n, true); // traverse left
         else if (((Comparable<K>) k).compareTo(n.key) > 0) 
             delete(k, n.rightChild, n, false); // traverse right
@@ -170,38 +376,53 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
                 
         }
 
-    //Helper method to determine and delete node with 2 children using successor
+    //Helper method to delete node with 2 children using successor, the
+    //smallest key on the right moves up into n and its node is unlinked
     private void deleteUsingSuccessor(Node<K, V> n) {
-        Node<K, V> node = n.rightChild;
-        while (node.leftChild != null && node.rightChild != null) {
-            node = node.leftChild;
-            }
-        if (node.rightChild != null && node.leftChild == null)
-            n.key = node.key;
-            n.value = node.value;
+        n.rightChild = removeMin(n.rightChild, n);
         }
         
-    //Helper method to determine and delete node with 2 children using predecessor
+    //Helper method to delete node with 2 children using predecessor, the
+    //largest key on the left moves up into n and its node is unlinked
     private void deleteUsingPredecessor(Node<K, V> n) {
-        Node<K, V> node = n.leftChild;
-        while (node.rightChild != null && node.leftChild != null) {
-            node = node.rightChild;
+        n.leftChild = removeMax(n.leftChild, n);
+        }
+
+    // Copies the smallest pair under n into target, unlinks its node and
+    // returns what is left of the subtree
+    private Node<K, V> removeMin(Node<K, V> n, Node<K, V> target) {
+        if (n.leftChild == null) {
+            target.key = n.key;
+            target.value = n.value;
+            return n.rightChild;
             }
-        if (node.leftChild != null && node.rightChild == null)
-            n.key = node.key;
-            n.value = node.value;
+        n.size--;
+        n.leftChild = removeMin(n.leftChild, target);
+        return n;
         }
 
-    // getKey() helper method
-    private K findKey(V v, Node<K, V> n) {
-        if (n == null) 
-            return null;
-        if (((Comparable<V>) v).compareTo((V) n.value) < 0) 
-            return findKey(v, n.leftChild);
-        else if (((Comparable<V>) v).compareTo((V) n.value) > 0) 
-            return findKey(v, n.rightChild);
-        else 
-            return n.key;
+    // Copies the largest pair under n into target, unlinks its node and
+    // returns what is left of the subtree
+    private Node<K, V> removeMax(Node<K, V> n, Node<K, V> target) {
+        if (n.rightChild == null) {
+            target.key = n.key;
+            target.value = n.value;
+            return n.leftChild;
+            }
+        n.size--;
+        n.rightChild = removeMax(n.rightChild, target);
+        return n;
+        }
+
+    // Iterative search for the node holding key k, null if there is none
+    private Node<K, V> findNode(K k, Node<K, V> n) {
+        while (n != null) {
+            int cmp = ((Comparable<K>) k).compareTo(n.key);
+            if (cmp == 0)
+                return n;
+            n = cmp < 0 ? n.leftChild : n.rightChild;
+            }
+        return null;
         }
 
     // From Riggins course reader, get() helper method
@@ -216,58 +437,171 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
             return (V) n.value;
         }
 
-    abstract class IteratorHelper<E> implements Iterator<E> {
-        protected Node<K, V>[] nodes;
-        protected int index, iterIndex;
-        protected long modCheck;
-
-        public IteratorHelper() {
-            nodes = new Node[currentSize];
-            index = 0;
-            iterIndex = 0;
+    // Lazy inorder walk over the nodes with keys from lo inclusive to hi
+    // exclusive, either bound null for none. Only the path to the next
+    // node is kept, in an explicit stack, so each step is O(1) amortized,
+    // memory is O(height) and stopping early skips the rest of the tree.
+    class RangeIterator {
+        private Node<K, V>[] stack;
+        private int top;
+        private final K hi;
+        private long modCheck;
+
+        public RangeIterator(K lo, K hi) {
+            stack = new Node[16];
+            top = 0;
+            this.hi = hi;
             modCheck = modCounter;
-            inorderFillArray(root);
+            // keep the nodes at or above lo on the way down to it
+            Node<K, V> n = root;
+            while (n != null)
+                if (lo != null && ((Comparable<K>) n.key).compareTo(lo) < 0)
+                    n = n.rightChild;
+                else {
+                    push(n);
+                    n = n.leftChild;
+                    }
             }
 
         public boolean hasNext() {
             if (modCheck != modCounter)
                 throw new ConcurrentModificationException();
-            return index < currentSize;
+            return top > 0 && (hi == null || ((Comparable<K>) stack[top - 1].key).compareTo(hi) < 0);
             }
 
-        public abstract E next();
+        public Node<K, V> nextNode() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Node<K, V> n = stack[--top];
+            stack[top] = null;
+            for (Node<K, V> m = n.rightChild; m != null; m = m.leftChild)
+                push(m);
+            return n;
+            }
 
-        public void delete() {
-            throw new UnsupportedOperationException();
+        private void push(Node<K, V> n) {
+            if (top == stack.length)
+                stack = Arrays.copyOf(stack, top << 1);
+            stack[top++] = n;
+            }
+    }
+
+    // Read only view of the pairs with keys from lo inclusive to hi
+    // exclusive, either bound null for none. Narrowing it again keeps the
+    // tighter of the two bounds on each side.
+    class SubMap extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final K lo, hi;
+
+        SubMap(K lo, K hi) {
+            this.lo = lo;
+            this.hi = hi;
+            }
+
+        private boolean inRange(Object key) {
+            return (lo == null || ((Comparable<K>) key).compareTo(lo) >= 0)
+                    && (hi == null || ((Comparable<K>) key).compareTo(hi) < 0);
+            }
+
+        private K max(K a, K b) {
+            return a == null ? b : b == null ? a : ((Comparable<K>) a).compareTo(b) >= 0 ? a : b;
+            }
+
+        private K min(K a, K b) {
+            return a == null ? b : b == null ? a : ((Comparable<K>) a).compareTo(b) <= 0 ? a : b;
             }
 
-        // From Riggins lecture 15
-        private void inorderFillArray(Node<K, V> n) {
-            if (n == null)
-                return;
-            inorderFillArray(n.leftChild);
-            nodes[iterIndex++] = n;
-            inorderFillArray(n.rightChild);
+        public V get(Object key) {
+            if (key == null || !inRange(key))
+                return null;
+            Node<K, V> n = findNode((K) key, root);
+            return n == null ? null : n.value;
+            }
+
+        public boolean containsKey(Object key) {
+            return key != null && inRange(key) && findNode((K) key, root) != null;
+            }
+
+        // ranks of the bounds give the size without walking the range
+        public int size() {
+            int size = (hi == null ? currentSize : rank(hi)) - (lo == null ? 0 : rank(lo));
+            return Math.max(size, 0);
+            }
+
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<Map.Entry<K, V>>() {
+                public int size() { return SubMap.this.size(); }
+
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    RangeIterator nodes = new RangeIterator(lo, hi);
+                    return new Iterator<Map.Entry<K, V>>() {
+                        public boolean hasNext() { return nodes.hasNext(); }
+
+                        public Map.Entry<K, V> next() {
+                            Node<K, V> n = nodes.nextNode();
+                            return new AbstractMap.SimpleImmutableEntry<K, V>(n.key, n.value);
+                            }
+                        };
+                    }
+                };
+            }
+
+        public Comparator<? super K> comparator() { return null; }
+
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return new SubMap(max(lo, fromKey), min(hi, toKey));
+            }
+
+        public SortedMap<K, V> headMap(K toKey) {
+            return new SubMap(lo, min(hi, toKey));
+            }
+
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return new SubMap(max(lo, fromKey), hi);
+            }
+
+        public K firstKey() {
+            K first = lo == null ? select(0) : ceilingKey(lo);
+            if (first == null || !inRange(first))
+                throw new NoSuchElementException();
+            return first;
+            }
+
+        public K lastKey() {
+            // the key just below hi is the one ranked one less than it
+            K last = select((hi == null ? currentSize : rank(hi)) - 1);
+            if (last == null || !inRange(last))
+                throw new NoSuchElementException();
+            return last;
+            }
+    }
+
+    abstract class IteratorHelper<E> extends RangeIterator implements Iterator<E> {
+        public IteratorHelper(K lo, K hi) {
+            super(lo, hi);
+            }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
             }
     }
 
-    class KeyIteratorHelper<K> extends IteratorHelper<K> {
-        public KeyIteratorHelper() {
-            super();
+    class KeyIteratorHelper extends IteratorHelper<K> {
+        public KeyIteratorHelper(K lo, K hi) {
+            super(lo, hi);
             }
 
         public K next() {
-            return (K) nodes[index++].key;
+            return nextNode().key;
             }
     }
 
-    class ValueIteratorHelper<V> extends IteratorHelper<V> {
-        public ValueIteratorHelper() {
-            super();
+    class ValueIteratorHelper extends IteratorHelper<V> {
+        public ValueIteratorHelper(K lo, K hi) {
+            super(lo, hi);
             }
 
         public V next() {
-            return (V) nodes[index++].value;
+            return nextNode().value;
             }
     }
 
@@ -276,11 +610,14 @@ public class BinarySearchTree<K, V> implements DictionaryADT<K, V> {
         private V value;
         private Node<K, V> leftChild;
         private Node<K, V> rightChild;
+        // nodes in the subtree rooted here, this one included
+        private int size;
 
         public Node(K k, V v) {
             key = k;
             value = v;
             leftChild = rightChild = null;
+            size = 1;
             }
     }
 
@@ -0,0 +1,393 @@
+ /**
+       *  ConcurrentHashtable
+       *  Create a thread safe Dictionary structure using a hashtable with
+       *  chaining split into independently locked segments. Reads take no
+       *  locks and iterators are weakly consistent instead of fail-fast.
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+@SuppressWarnings("unchecked")
+public class ConcurrentHashtable<K, V> implements DictionaryADT<K, V> {
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 32;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private final Segment<K, V>[] segments;
+    // the top bits of the hash pick the segment, the low bits pick the chain
+    private final int segmentShift, segmentMask;
+
+    public ConcurrentHashtable() {
+        this(DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentHashtable(int n) {
+        this(n, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    // n is the expected number of entries, concurrencyLevel the number of
+    // threads expected to write at once. Both are rounded up to powers of two.
+    public ConcurrentHashtable(int n, int concurrencyLevel) {
+        if (n < 0 || concurrencyLevel <= 0)
+            throw new IllegalArgumentException("Illegal capacity or concurrency level");
+        int count = 1, shift = 0;
+        while (count < Math.min(concurrencyLevel, MAX_SEGMENTS)) {
+            count <<= 1;
+            shift++;
+        }
+        segmentShift = 32 - shift;
+        segmentMask = count - 1;
+        int perSegment = 2;
+        while (perSegment * LOAD_FACTOR < (double) n / count)
+            perSegment <<= 1;
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++)
+            segments[i] = new Segment<K, V>(perSegment);
+    }
+
+    // Adds the given key/value pair to the dictionary. Returns
+    // false if the dictionary is full, or if the key is a duplicate.
+    // Returns true if addition succeeded.
+    public boolean put(K key, V value) {
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value);
+    }
+
+    // Deletes the key/value pair identified by the key parameter.
+    // Returns true if the key/value pair was found and removed,
+    // otherwise false.
+    public boolean delete(K key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash) != null;
+    }
+
+    // Returns the value associated with the parameter key. Returns
+    // null if the key is not found or the dictionary is empty.
+    // Takes no lock.
+    public V get(K key) {
+        int hash = hash(key);
+        Node<K, V> n = segmentFor(hash).find(key, hash);
+        return n == null ? null : n.value;
+    }
+
+    // Returns the key associated with the parameter value. Returns
+    // null if the value is not found in the dictionary. If more
+    // than one key exists that matches the given value, returns the
+    // first one found.
+    public K getKey(V value) {
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++)
+                for (Node<K, V> n = table.get(i); n != null; n = n.next)
+                    if (((Comparable<V>) value).compareTo(n.value) == 0)
+                        return n.key;
+        }
+        return null;
+    }
+
+    // Returns the number of key/value pairs currently stored
+    // in the dictionary. Writes running at the same time may or
+    // may not be counted.
+    public int size() {
+        long sum = 0;
+        for (Segment<K, V> segment : segments)
+            sum += segment.count;
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    // Returns true if the dictionary is full
+    public boolean isFull() {
+        return false;
+    }
+
+    // Returns true if the dictionary is empty
+    public boolean isEmpty() {
+        for (Segment<K, V> segment : segments)
+            if (segment.count != 0)
+                return false;
+        return true;
+    }
+
+    // Makes the dictionary empty, one segment at a time
+    public void clear() {
+        for (Segment<K, V> segment : segments)
+            segment.clear();
+    }
+
+    // Returns an Iterator of the keys in the dictionary, in ascending
+    // sorted order. The iterator is weakly consistent: it reflects the
+    // entries present when it was created and never throws
+    // ConcurrentModificationException.
+    public Iterator<K> keys() {
+        return new KeyIteratorHelper();
+    }
+
+    // Returns an Iterator of the values in the dictionary. The
+    // order of the values must match the order of the keys.
+    // If the table changes between calls to keys() and values() the two
+    // may differ, use entries() to read keys and values together.
+    public Iterator<V> values() {
+        return new ValueIteratorHelper();
+    }
+
+    // Writes the number of segments and every pair to out, keys and values
+    // at the width of their serializers. Every segment is locked while the
+    // nodes are copied, so the snapshot is of one moment, and writers are
+    // let go again before anything is written to out.
+    public void writeSnapshot(WritableByteChannel out, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        List<Node<K, V>> nodes = new ArrayList<Node<K, V>>();
+        for (Segment<K, V> segment : segments)
+            segment.lock();
+        try {
+            for (Segment<K, V> segment : segments) {
+                AtomicReferenceArray<Node<K, V>> table = segment.table;
+                for (int i = 0; i < table.length(); i++)
+                    for (Node<K, V> n = table.get(i); n != null; n = n.next)
+                        nodes.add(n);
+            }
+        } finally {
+            for (Segment<K, V> segment : segments)
+                segment.unlock();
+        }
+        Snapshot.Writer writer = new Snapshot.Writer(out, ConcurrentHashtable.class);
+        writer.writeInt(segments.length);
+        writer.writeInt(nodes.size());
+        for (Node<K, V> n : nodes) {
+            writer.write(keySerializer, n.key);
+            writer.writeBoolean(n.value != null);
+            if (n.value != null)
+                writer.write(valueSerializer, n.value);
+        }
+        writer.finish();
+    }
+
+    // Reads a table written by writeSnapshot() with the same number of
+    // segments, each sized for its share of the entries. Throws
+    // IOException if in does not hold one.
+    public static <K, V> ConcurrentHashtable<K, V> readSnapshot(ReadableByteChannel in,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, ConcurrentHashtable.class);
+        int segmentCount = reader.readInt();
+        int size = reader.readCount();
+        if (segmentCount <= 0)
+            throw new IOException("Corrupt snapshot, " + segmentCount + " segments");
+        ConcurrentHashtable<K, V> table = new ConcurrentHashtable<K, V>(size, segmentCount);
+        for (int i = 0; i < size; i++) {
+            K key = reader.read(keySerializer);
+            V value = reader.readBoolean() ? reader.read(valueSerializer) : null;
+            if (!table.put(key, value))
+                throw new IOException("Corrupt snapshot, duplicate key " + key);
+        }
+        return table;
+    }
+
+    // Returns a weakly consistent Iterator of the key/value pairs in
+    // ascending key order
+    public Iterator<Map.Entry<K, V>> entries() {
+        return new EntryIteratorHelper();
+    }
+
+    // Fibonacci hashing mixes the low bits of the hash code into the
+    // top bits that pick the segment
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    // Copies the entries without locking and sorts the copy by key
+    abstract class IteratorHelper<E> implements Iterator<E> {
+        protected Node<K, V>[] nodes;
+        protected int idx;
+
+        public IteratorHelper() {
+            List<Node<K, V>> snapshot = new ArrayList<Node<K, V>>();
+            for (Segment<K, V> segment : segments) {
+                AtomicReferenceArray<Node<K, V>> table = segment.table;
+                for (int i = 0; i < table.length(); i++)
+                    for (Node<K, V> n = table.get(i); n != null; n = n.next)
+                        snapshot.add(n);
+            }
+            Collections.sort(snapshot);
+            nodes = snapshot.toArray(new Node[snapshot.size()]);
+            idx = 0;
+        }
+
+        public boolean hasNext() {
+            return idx < nodes.length;
+        }
+
+        public abstract E next();
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    class KeyIteratorHelper extends IteratorHelper<K> {
+        public K next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return nodes[idx++].key;
+        }
+    }
+
+    class ValueIteratorHelper extends IteratorHelper<V> {
+        public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return nodes[idx++].value;
+        }
+    }
+
+    class EntryIteratorHelper extends IteratorHelper<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return nodes[idx++];
+        }
+    }
+
+    // A chained hashtable guarded by its own lock. Readers see the table
+    // through a volatile field and the chains through volatile links, so
+    // they never lock. Nodes are never changed after they are linked in
+    // except for next, and a removed node keeps its next link so a reader
+    // standing on it can finish its walk.
+    private static class Segment<K, V> extends ReentrantLock {
+        volatile AtomicReferenceArray<Node<K, V>> table;
+        volatile int count;
+        private int threshold;
+
+        Segment(int capacity) {
+            table = new AtomicReferenceArray<Node<K, V>>(capacity);
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        Node<K, V> find(Object key, int hash) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            for (Node<K, V> n = tab.get(hash & (tab.length() - 1)); n != null; n = n.next)
+                if (n.matches(key, hash))
+                    return n;
+            return null;
+        }
+
+        boolean put(K key, int hash, V value) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                for (Node<K, V> n = tab.get(index); n != null; n = n.next)
+                    if (n.matches(key, hash))
+                        return false;
+                if (count >= threshold) {
+                    tab = rehash();
+                    index = hash & (tab.length() - 1);
+                }
+                tab.set(index, new Node<K, V>(hash, key, value, tab.get(index)));
+                count = count + 1;
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        Node<K, V> remove(Object key, int hash) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Node<K, V> prev = null;
+                for (Node<K, V> n = tab.get(index); n != null; prev = n, n = n.next)
+                    if (n.matches(key, hash)) {
+                        if (prev == null)
+                            tab.set(index, n.next);
+                        else
+                            prev.next = n.next;
+                        count = count - 1;
+                        return n;
+                    }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                table = new AtomicReferenceArray<Node<K, V>>(table.length());
+                count = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        // Builds a table twice the size from copies of the nodes, so
+        // readers still walking the old table see unchanged chains.
+        // Called with the lock held.
+        private AtomicReferenceArray<Node<K, V>> rehash() {
+            AtomicReferenceArray<Node<K, V>> old = table;
+            int capacity = old.length() << 1;
+            AtomicReferenceArray<Node<K, V>> tab = new AtomicReferenceArray<Node<K, V>>(capacity);
+            for (int i = 0; i < old.length(); i++)
+                for (Node<K, V> n = old.get(i); n != null; n = n.next) {
+                    int index = n.hash & (capacity - 1);
+                    tab.set(index, new Node<K, V>(n.hash, n.key, n.value, tab.get(index)));
+                }
+            threshold = (int) (capacity * LOAD_FACTOR);
+            table = tab;
+            return tab;
+        }
+    }
+
+    private static class Node<K, V> implements Comparable<Node<K, V>>, Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        final V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        boolean matches(Object k, int h) {
+            return hash == h && (key == k || ((Comparable<Object>) k).compareTo(key) == 0);
+        }
+
+        public int compareTo(Node<K, V> node) {
+            return ((Comparable<K>) key).compareTo(node.key);
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -7,23 +7,63 @@
        */
 package data_structures;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 @SuppressWarnings("unchecked")
 public class Hashtable<K, V> implements DictionaryADT<K, V> {
+    // with the default load factor the table starts at maxSize * 1.3 chains
+    public static final float DEFAULT_LOAD_FACTOR = 1 / 1.3f;
+    // least number of old chains moved into the new table per put or delete
+    private static final int REHASH_STEP = 4;
     private int currentSize, tableSize, maxSize;
     private long modCounter;
+    private final float loadFactor;
     private ListADT<DictionaryNode<K, V>>[] list;
+    // chains still being rehashed into list, null when no rehash is running.
+    // Chains below rehashIndex have already been moved, rehashStep more
+    // move on each put or delete. A null chain in either table is empty.
+    private ListADT<DictionaryNode<K, V>>[] oldList;
+    private int oldTableSize, rehashIndex, rehashStep;
+    // nodes in key order, shared by every sorted iterator until the next
+    // modification. sortedGeneration is the modCounter it was built at.
+    private DictionaryNode<K, V>[] sorted;
+    private long sortedGeneration;
+    // value to key index for getKey(), null unless requested in the constructor
+    private ReverseIndex<K, V> reverseIndex;
 
     public Hashtable(int n) {
+        this(n, DEFAULT_LOAD_FACTOR, false);
+    }
+
+    public Hashtable(int n, boolean indexValues) {
+        this(n, DEFAULT_LOAD_FACTOR, indexValues);
+    }
+
+    public Hashtable(int n, float loadFactor) {
+        this(n, loadFactor, false);
+    }
+
+    // n is the expected number of entries. Once more than n entries are
+    // stored the table roughly doubles, so n only needs to be a guess.
+    // indexValues keeps a value to key index so getKey() does not scan.
+    public Hashtable(int n, float loadFactor, boolean indexValues) {
+        if (!(loadFactor > 0))
+            throw new IllegalArgumentException("Load factor must be positive: " + loadFactor);
         currentSize = 0;
-        maxSize = n;
-        tableSize = (int) (maxSize * 1.3f);
-        list = new LinkedListDS[tableSize];
-        for (int i = 0; i < tableSize; i++)
-            list[i] = new LinkedListDS<DictionaryNode<K, V>>();
+        this.loadFactor = loadFactor;
+        tableSize = nextPrime((int) Math.min(Integer.MAX_VALUE - 8, Math.max(n, 1) / (double) loadFactor));
+        maxSize = (int) (tableSize * loadFactor);
+        list = new ListADT[tableSize];
+        if (indexValues)
+            reverseIndex = new ReverseIndex<K, V>();
     }
 
     // Adds the given key/value pair to the dictionary. Returns
@@ -31,13 +71,21 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
     // Returns true if addition succeeded.
     // Modified from Rob Edwards add() method video
     public boolean put(K key, V value) {
-        if (list[getIndex(key)].contains(new DictionaryNode<K, V>(key, null)))
+        if (find(key) != null)
             return false;
+        if (currentSize >= maxSize)
+            grow();
         DictionaryNode<K, V> element = new DictionaryNode(key, value);
         int hashVal = getIndex(key);
+        if (list[hashVal] == null)
+            list[hashVal] = new LinkedListDS<DictionaryNode<K, V>>();
         list[hashVal].addLast(element);
+        if (reverseIndex != null)
+            reverseIndex.add(key, value);
         currentSize++;
         modCounter++;
+        if (oldList != null)
+            rehash(rehashStep);
         return true;
     }
 
@@ -46,13 +94,23 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
     // otherwise false.
     // Modified from Rob Edwards remove() method video
     public boolean delete(K key) {
-        if (isEmpty() || !list[getIndex(key)].contains(new DictionaryNode<K, V>(key, null)))
+        if (isEmpty())
             return false;
         DictionaryNode<K, V> element = new DictionaryNode(key, null);
-        int hashVal = getIndex(key);
-        list[hashVal].remove(element);
+        ListADT<DictionaryNode<K, V>> chain = list[getIndex(key)];
+        DictionaryNode<K, V> removed = chain == null ? null : chain.remove(element);
+        if (removed == null) {
+            int oldIndex;
+            if (oldList == null || (oldIndex = getOldIndex(key)) < rehashIndex
+                    || oldList[oldIndex] == null || (removed = oldList[oldIndex].remove(element)) == null)
+                return false;
+        }
+        if (reverseIndex != null)
+            reverseIndex.remove(removed.key, removed.value);
         currentSize--;
         modCounter++;
+        if (oldList != null)
+            rehash(rehashStep);
         return true;
     }
 
@@ -60,9 +118,9 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
     // null if the key is not found or the dictionary is empty.
     // From Riggins lecture 14
     public V get(K key) {
-        if (isEmpty() || !list[getIndex(key)].contains(new DictionaryNode<K, V>(key, null)))
+        if (isEmpty())
             return null;
-        DictionaryNode<K, V> tmp = list[getIndex(key)].search(new DictionaryNode<K, V>(key, null));
+        DictionaryNode<K, V> tmp = find(key);
         if (tmp == null)
             return null;
         return tmp.value;
@@ -75,10 +133,19 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
     public K getKey(V value) {
         if (isEmpty())
             return null;
+        if (reverseIndex != null)
+            return reverseIndex.first(value);
         for (int i = 0; i < tableSize; i++)
-            for (DictionaryNode<K, V> he : list[i])
-                if (((Comparable<V>) value).compareTo(he.value) == 0)
-                    return he.key;
+            if (list[i] != null)
+                for (DictionaryNode<K, V> he : list[i])
+                    if (((Comparable<V>) value).compareTo(he.value) == 0)
+                        return he.key;
+        if (oldList != null)
+            for (int i = rehashIndex; i < oldTableSize; i++)
+                if (oldList[i] != null)
+                    for (DictionaryNode<K, V> he : oldList[i])
+                        if (((Comparable<V>) value).compareTo(he.value) == 0)
+                            return he.key;
         return null;
     }
 
@@ -100,10 +167,15 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
 
     // Makes the dictionary empty
     public void clear() {
-        for (int i = 0; i < tableSize; i++)
-            list[i].makeEmpty();
+        Arrays.fill(list, null);
+        oldList = null;
+        oldTableSize = 0;
+        rehashIndex = 0;
         currentSize = 0;
         modCounter = 0;
+        sorted = null;
+        if (reverseIndex != null)
+            reverseIndex.clear();
     }
 
     // Returns an Iterator of the keys in the dictionary, in ascending
@@ -118,6 +190,90 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
         return new ValueIteratorHelper();
     }
 
+    // Returns an Iterator of the key/value pairs in ascending key order.
+    // The entries are read only views of the stored nodes.
+    public Iterator<Map.Entry<K, V>> entries() {
+        return new EntryIteratorHelper();
+    }
+
+    // Passes every key/value pair to action in ascending key order.
+    // Throws ConcurrentModificationException if action modifies the table.
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        long modCheck = modCounter;
+        for (DictionaryNode<K, V> n : sortedNodes()) {
+            action.accept(n.key, n.value);
+            if (modCheck != modCounter)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    // Returns an Iterator of the key/value pairs in chain order, which is
+    // no particular order. Nothing is copied or sorted.
+    public Iterator<Map.Entry<K, V>> unorderedEntries() {
+        return new ChainIteratorHelper();
+    }
+
+    // Writes the load factor, whether values are indexed and the pairs in
+    // chain order to out, keys and values at the width of their serializers
+    public void writeSnapshot(WritableByteChannel out, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, Hashtable.class);
+        writer.writeFloat(loadFactor);
+        writer.writeBoolean(reverseIndex != null);
+        writer.writeInt(currentSize);
+        for (Iterator<Map.Entry<K, V>> iter = unorderedEntries(); iter.hasNext();) {
+            Map.Entry<K, V> e = iter.next();
+            writer.write(keySerializer, e.getKey());
+            writer.writeBoolean(e.getValue() != null);
+            if (e.getValue() != null)
+                writer.write(valueSerializer, e.getValue());
+        }
+        writer.finish();
+    }
+
+    // Reads a table written by writeSnapshot() into one sized for its
+    // entries, so nothing is rehashed while it loads. Throws IOException
+    // if in does not hold one.
+    public static <K, V> Hashtable<K, V> readSnapshot(ReadableByteChannel in, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, Hashtable.class);
+        float loadFactor = reader.readFloat();
+        boolean indexValues = reader.readBoolean();
+        int size = reader.readCount();
+        if (!(loadFactor > 0))
+            throw new IOException("Corrupt snapshot, load factor " + loadFactor);
+        Hashtable<K, V> table = new Hashtable<K, V>(size, loadFactor, indexValues);
+        for (int i = 0; i < size; i++) {
+            K key = reader.read(keySerializer);
+            V value = reader.readBoolean() ? reader.read(valueSerializer) : null;
+            if (!table.put(key, value))
+                throw new IOException("Corrupt snapshot, duplicate key " + key);
+        }
+        return table;
+    }
+
+    // The sorted snapshot is built at most once per modification, so
+    // keys(), values() and entries() between changes share one sort
+    private DictionaryNode<K, V>[] sortedNodes() {
+        if (sorted != null && sortedGeneration == modCounter)
+            return sorted;
+        DictionaryNode<K, V>[] nodes = new DictionaryNode[currentSize];
+        int j = 0;
+        for (int i = 0; i < tableSize; i++)
+            if (list[i] != null)
+                for (DictionaryNode<K, V> n : list[i])
+                    nodes[j++] = n;
+        if (oldList != null)
+            for (int i = rehashIndex; i < oldTableSize; i++)
+                if (oldList[i] != null)
+                    for (DictionaryNode<K, V> n : oldList[i])
+                        nodes[j++] = n;
+        Arrays.sort(nodes);
+        sorted = nodes;
+        sortedGeneration = modCounter;
+        return nodes;
+    }
+
     // From Riggins course reader
     abstract class IteratorHelper<E> implements Iterator<E> {
         protected DictionaryNode<K, V>[] nodes;
@@ -125,20 +281,15 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
         protected long modCheck;
 
         public IteratorHelper() {
-            nodes = new DictionaryNode[currentSize];
+            nodes = sortedNodes();
             idx = 0;
-            int j = 0;
             modCheck = modCounter;
-            for (int i = 0; i < tableSize; i++)
-                for (DictionaryNode n : list[i])
-                    nodes[j++] = n;
-            nodes = (DictionaryNode<K, V>[]) shellSort(nodes);
         }
 
         public boolean hasNext() {
             if (modCheck != modCounter)
                 throw new ConcurrentModificationException();
-            return idx < currentSize;
+            return idx < nodes.length;
         }
 
         public abstract E next();
@@ -154,6 +305,8 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
         }
 
         public K next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
             return (K) nodes[idx++].key;
         }
     }
@@ -164,11 +317,63 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
         }
 
         public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
             return (V) nodes[idx++].value;
         }
     }
 
-    private class DictionaryNode<K, V> implements Comparable<DictionaryNode<K, V>> {
+    class EntryIteratorHelper extends IteratorHelper<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return nodes[idx++];
+        }
+    }
+
+    // Walks the chains of the current table, then the chains of the old
+    // table that have not been rehashed yet
+    class ChainIteratorHelper implements Iterator<Map.Entry<K, V>> {
+        private ListADT<DictionaryNode<K, V>>[] table;
+        private int bucket;
+        private Iterator<DictionaryNode<K, V>> chain;
+        private long modCheck;
+
+        public ChainIteratorHelper() {
+            table = list;
+            bucket = -1;
+            modCheck = modCounter;
+        }
+
+        public boolean hasNext() {
+            if (modCheck != modCounter)
+                throw new ConcurrentModificationException();
+            while (chain == null || !chain.hasNext()) {
+                if (++bucket == table.length) {
+                    if (table != list || oldList == null)
+                        return false;
+                    table = oldList;
+                    bucket = rehashIndex;
+                    if (bucket == table.length)
+                        return false;
+                }
+                chain = table[bucket] == null ? null : table[bucket].iterator();
+            }
+            return true;
+        }
+
+        public Map.Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return chain.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class DictionaryNode<K, V> implements Comparable<DictionaryNode<K, V>>, Map.Entry<K, V> {
         K key;
         V value;
 
@@ -180,6 +385,18 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
         public int compareTo(DictionaryNode<K, V> node) {
             return ((Comparable<K>) key).compareTo(((K) node.key));
         }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
     }
 
     // From Riggins lecture 14 video
@@ -187,26 +404,81 @@ public class Hashtable<K, V> implements DictionaryADT<K, V> {
         return (key.hashCode() & 0x7FFFFFFF) % tableSize;
     }
 
-    // From Riggins course reader, modified for use with DictionaryNode<K,V>
-    private DictionaryNode<K, V>[] shellSort(DictionaryNode[] array) {
-        DictionaryNode<K, V>[] n = array;
-        int in, out, h = 1;
-        DictionaryNode<K, V> temp = null;
-        int size = n.length;
-        while (h <= size / 3)
-            h = h * 3 + 1;
-        while (h > 0) {
-            for (out = h; out < size; out++) {
-                temp = n[out];
-                in = out;
-                while (in > h - 1 && n[in - h].compareTo(temp) >= 0) {
-                    n[in] = n[in - h];
-                    in -= h;
-                }
-                n[in] = temp;
+    private int getOldIndex(K key) {
+        return (key.hashCode() & 0x7FFFFFFF) % oldTableSize;
+    }
+
+    // Looks the key up in the current table, then in the part of the
+    // old table that has not been rehashed yet
+    private DictionaryNode<K, V> find(K key) {
+        DictionaryNode<K, V> probe = new DictionaryNode<K, V>(key, null);
+        ListADT<DictionaryNode<K, V>> chain = list[getIndex(key)];
+        DictionaryNode<K, V> tmp = chain == null ? null : chain.search(probe);
+        if (tmp == null && oldList != null) {
+            int oldIndex = getOldIndex(key);
+            if (oldIndex >= rehashIndex && oldList[oldIndex] != null)
+                tmp = oldList[oldIndex].search(probe);
+        }
+        return tmp;
+    }
+
+    // Starts moving the chains into a table about twice the size. The
+    // chains move a few at a time on later puts and deletes so no single
+    // put pays for copying the whole table. Chains are only allocated once
+    // a key lands in them, so the new table is a single array.
+    private void grow() {
+        // a safety net only, rehashStep finishes each move before the
+        // table can fill again
+        if (oldList != null)
+            rehash(oldTableSize);
+        oldList = list;
+        oldTableSize = tableSize;
+        rehashIndex = 0;
+        tableSize = nextPrime((int) Math.min(Integer.MAX_VALUE - 8, 2L * tableSize));
+        maxSize = (int) Math.min(Integer.MAX_VALUE, (long) (tableSize * (double) loadFactor));
+        list = new ListADT[tableSize];
+        // enough chains per put that the old table is empty by the time
+        // the new one fills, however low the load factor
+        int puts = Math.max(maxSize - currentSize, 1);
+        rehashStep = Math.max(REHASH_STEP, (oldTableSize + puts - 1) / puts);
+    }
+
+    // Moves up to count chains from the old table into the current one
+    private void rehash(int count) {
+        int end = Math.min(oldTableSize, rehashIndex + count);
+        for (; rehashIndex < end; rehashIndex++) {
+            if (oldList[rehashIndex] == null)
+                continue;
+            for (DictionaryNode<K, V> n : oldList[rehashIndex]) {
+                int index = getIndex(n.key);
+                if (list[index] == null)
+                    list[index] = new LinkedListDS<DictionaryNode<K, V>>();
+                list[index].addLast(n);
             }
-            h = (h - 1) / 3;
+            oldList[rehashIndex] = null;
+        }
+        if (rehashIndex == oldTableSize) {
+            oldList = null;
+            oldTableSize = 0;
+            rehashIndex = 0;
+        }
+    }
+
+    // Smallest prime >= n, so the modulus in getIndex() spreads keys evenly
+    private static int nextPrime(int n) {
+        if (n <= 2)
+            return 2;
+        if ((n & 1) == 0)
+            n++;
+        for (;; n += 2) {
+            boolean prime = true;
+            for (int d = 3; (long) d * d <= n; d += 2)
+                if (n % d == 0) {
+                    prime = false;
+                    break;
+                }
+            if (prime)
+                return n;
         }
-        return n;
     }
 }
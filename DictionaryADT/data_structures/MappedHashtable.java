@@ -0,0 +1,471 @@
+ /**
+       *  MappedHashtable
+       *  Create a Dictionary structure using a hashtable with linear probing
+       *  whose slots live in a memory-mapped file, so the table outlives the
+       *  process and reopens without being rebuilt. Keys and values are
+       *  written as fixed width bytes by a Serializer.
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class MappedHashtable<K, V> implements DictionaryADT<K, V>, Closeable {
+    public static final float LOAD_FACTOR = 0.75f;
+    // "MHT1" at the start of every table file
+    private static final int MAGIC = 0x4d485431;
+    // header fields, padded out to HEADER_SIZE bytes
+    private static final int MAGIC_OFFSET = 0, CAPACITY_OFFSET = 4, SIZE_OFFSET = 8,
+            KEY_WIDTH_OFFSET = 12, VALUE_WIDTH_OFFSET = 16;
+    private static final int HEADER_SIZE = 32;
+    // each slot is a state byte, the hash of the key bytes, the key and
+    // then the value. A new file is all zeros, so every slot starts EMPTY.
+    private static final byte EMPTY = 0, FULL = 1, NULL_VALUE = 2;
+    private static final int HASH_OFFSET = 1, KEY_OFFSET = 5;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private MappedByteBuffer table;
+    private final boolean readOnly;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int keyWidth, valueWidth, slotWidth;
+    private int capacity, threshold;
+    // scratch space for the key being looked up, a key or value read
+    // from a slot, and a slot being moved, reused by every call
+    private final byte[] keyBytes, slotKeyBytes, valueBytes, slotBytes;
+    private final ByteBuffer keyBuffer, slotKeyBuffer, valueBuffer;
+    private int currentSize;
+    private long modCounter;
+
+    // Opens the table stored in file for reading and writing, or creates
+    // one sized for n entries if the file is missing or empty. An existing
+    // table keeps the capacity it was created with. While it is open no
+    // other process can open the file.
+    public MappedHashtable(Path file, int n, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        this(file, n, keySerializer, valueSerializer, false);
+    }
+
+    // Opens an existing table read only. Any number of processes on the
+    // host can open the same file this way and share its pages in the page
+    // cache, but none while it is open for writing. put, delete and clear
+    // throw UnsupportedOperationException.
+    public MappedHashtable(Path file, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        this(file, 0, keySerializer, valueSerializer, true);
+    }
+
+    private MappedHashtable(Path file, int n, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer, boolean readOnly) throws IOException {
+        if (n < 0)
+            throw new IllegalArgumentException("Negative capacity: " + n);
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.readOnly = readOnly;
+        keyWidth = keySerializer.width();
+        valueWidth = valueSerializer.width();
+        slotWidth = KEY_OFFSET + keyWidth + valueWidth;
+        keyBytes = new byte[keyWidth];
+        slotKeyBytes = new byte[keyWidth];
+        valueBytes = new byte[valueWidth];
+        slotBytes = new byte[slotWidth];
+        keyBuffer = ByteBuffer.wrap(keyBytes);
+        slotKeyBuffer = ByteBuffer.wrap(slotKeyBytes);
+        valueBuffer = ByteBuffer.wrap(valueBytes);
+        channel = readOnly ? FileChannel.open(file, StandardOpenOption.READ)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE);
+        try {
+            // readers share the lock, a writer needs the file to itself
+            lock = channel.tryLock(0, Long.MAX_VALUE, readOnly);
+            if (lock == null)
+                throw new IOException(file + (readOnly ? " is open for writing in another process"
+                        : " is open in another process"));
+            if (channel.size() == 0 && !readOnly)
+                create(n);
+            else
+                open(file);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        modCounter = 0;
+    }
+
+    // Adds the given key/value pair to the dictionary. Returns
+    // false if the dictionary is full, or if the key is a duplicate.
+    // Returns true if addition succeeded.
+    public boolean put(K key, V value) {
+        checkWritable();
+        int hash = serializeKey(key);
+        int slot = probe(hash);
+        if (slot >= 0 || currentSize >= threshold)
+            return false;
+        int at = offset(-(slot + 1));
+        table.putInt(at + HASH_OFFSET, hash);
+        table.put(at + KEY_OFFSET, keyBytes);
+        if (value != null) {
+            valueBuffer.clear();
+            valueSerializer.write(value, valueBuffer);
+            Arrays.fill(valueBytes, valueBuffer.position(), valueWidth, (byte) 0);
+            table.put(at + KEY_OFFSET + keyWidth, valueBytes);
+        }
+        // the state goes in last so a slot is never live half written
+        table.put(at, value == null ? NULL_VALUE : FULL);
+        setSize(currentSize + 1);
+        modCounter++;
+        return true;
+    }
+
+    // Deletes the key/value pair identified by the key parameter.
+    // Returns true if the key/value pair was found and removed,
+    // otherwise false.
+    public boolean delete(K key) {
+        checkWritable();
+        if (isEmpty())
+            return false;
+        int slot = probe(serializeKey(key));
+        if (slot < 0)
+            return false;
+        shiftDelete(slot);
+        setSize(currentSize - 1);
+        modCounter++;
+        return true;
+    }
+
+    // Returns the value associated with the parameter key. Returns
+    // null if the key is not found or the dictionary is empty.
+    public V get(K key) {
+        checkOpen();
+        if (isEmpty())
+            return null;
+        int slot = probe(serializeKey(key));
+        return slot < 0 ? null : readValue(offset(slot));
+    }
+
+    // Returns the key associated with the parameter value. Returns
+    // null if the value is not found in the dictionary. If more
+    // than one key exists that matches the given value, returns the
+    // first one found.
+    public K getKey(V value) {
+        checkOpen();
+        if (isEmpty())
+            return null;
+        for (int i = 0; i < capacity; i++) {
+            int at = offset(i);
+            if (table.get(at) == FULL && ((Comparable<V>) value).compareTo(readValue(at)) == 0)
+                return readKey(at);
+        }
+        return null;
+    }
+
+    // Returns the number of key/value pairs currently stored
+    // in the dictionary
+    public int size() {
+        return currentSize;
+    }
+
+    // Returns true if the dictionary is full. The file does not grow, so
+    // it is full once the capacity it was created with is reached.
+    public boolean isFull() {
+        return currentSize >= threshold;
+    }
+
+    // Returns true if the dictionary is empty
+    public boolean isEmpty() {
+        return currentSize == 0;
+    }
+
+    // Makes the dictionary empty, the file keeps its current capacity
+    public void clear() {
+        checkWritable();
+        for (int i = 0; i < capacity; i++)
+            table.put(offset(i), EMPTY);
+        setSize(0);
+        modCounter++;
+    }
+
+    // Returns an Iterator of the keys in the dictionary, in ascending
+    // sorted order
+    public Iterator<K> keys() {
+        checkOpen();
+        return new KeyIteratorHelper();
+    }
+
+    // Returns an Iterator of the values in the dictionary. The
+    // order of the values must match the order of the keys.
+    public Iterator<V> values() {
+        checkOpen();
+        return new ValueIteratorHelper();
+    }
+
+    // Writes changes made so far through to the file, so they survive a
+    // crash of the machine and not only of the process
+    public void flush() {
+        checkOpen();
+        if (!readOnly)
+            table.force();
+    }
+
+    // Writes the table file to out byte for byte. Slots are laid out by
+    // the hash of their key bytes, so the copy needs no rehashing to be
+    // opened again.
+    public void writeSnapshot(WritableByteChannel out) throws IOException {
+        checkOpen();
+        Snapshot.Writer writer = new Snapshot.Writer(out, MappedHashtable.class);
+        ByteBuffer bytes = table.duplicate();
+        bytes.clear();
+        writer.writeLong(bytes.remaining());
+        writer.writeBytes(bytes);
+        writer.finish();
+    }
+
+    // Copies a table written by writeSnapshot() into file, which must not
+    // exist yet, and opens it for reading and writing. Throws IOException
+    // if in does not hold one, and IllegalArgumentException if the
+    // serializers do not match the widths it was written with.
+    public static <K, V> MappedHashtable<K, V> readSnapshot(ReadableByteChannel in, Path file,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, MappedHashtable.class);
+        long length = reader.readLong();
+        if (length < HEADER_SIZE || length > Integer.MAX_VALUE)
+            throw new IOException("Corrupt snapshot, table of " + length + " bytes");
+        try (FileChannel copy = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, 1 << 20));
+            for (long copied = 0; copied < length; copied += buffer.limit()) {
+                buffer.clear().limit((int) Math.min(length - copied, buffer.capacity()));
+                reader.readBytes(buffer);
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    copy.write(buffer);
+            }
+        }
+        catch (FileAlreadyExistsException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            // a half copied table would only fail to open later
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        // the header is checked as for any file being opened
+        return new MappedHashtable<K, V>(file, 0, keySerializer, valueSerializer);
+    }
+
+    // Flushes the table and releases the file. The dictionary cannot be
+    // used afterwards.
+    public void close() throws IOException {
+        if (table == null)
+            return;
+        flush();
+        table = null;
+        try {
+            lock.release();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    abstract class IteratorHelper<E> implements Iterator<E> {
+        protected Object[] sortedKeys;
+        protected int idx;
+        protected long modCheck;
+
+        public IteratorHelper() {
+            sortedKeys = new Object[currentSize];
+            idx = 0;
+            modCheck = modCounter;
+            int j = 0;
+            for (int i = 0; i < capacity; i++)
+                if (table.get(offset(i)) != EMPTY)
+                    sortedKeys[j++] = readKey(offset(i));
+            Arrays.sort(sortedKeys);
+        }
+
+        public boolean hasNext() {
+            if (modCheck != modCounter)
+                throw new ConcurrentModificationException();
+            return idx < sortedKeys.length;
+        }
+
+        public abstract E next();
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    class KeyIteratorHelper extends IteratorHelper<K> {
+        public K next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return (K) sortedKeys[idx++];
+        }
+    }
+
+    // Values are looked up by key as the iterator advances so only
+    // the keys are read and sorted
+    class ValueIteratorHelper extends IteratorHelper<V> {
+        public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return get((K) sortedKeys[idx++]);
+        }
+    }
+
+    // Maps a new file with every slot empty and writes its header
+    private void create(int n) throws IOException {
+        capacity = tableSizeFor((int) Math.min(1 << 30, (long) (n / LOAD_FACTOR) + 1));
+        long length = HEADER_SIZE + (long) capacity * slotWidth;
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Table of " + capacity + " slots of " + slotWidth
+                    + " bytes does not fit in one mapping");
+        threshold = Math.min((int) (capacity * LOAD_FACTOR), capacity - 1);
+        table = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        table.putInt(MAGIC_OFFSET, MAGIC);
+        table.putInt(CAPACITY_OFFSET, capacity);
+        table.putInt(KEY_WIDTH_OFFSET, keyWidth);
+        table.putInt(VALUE_WIDTH_OFFSET, valueWidth);
+        setSize(0);
+    }
+
+    // Maps an existing file after checking its header. Nothing is read
+    // beyond the header, pages of the table are loaded as they are probed.
+    private void open(Path file) throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (length < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE
+                || header.getInt(MAGIC_OFFSET) != MAGIC)
+            throw new IOException(file + " is not a MappedHashtable file");
+        if (header.getInt(KEY_WIDTH_OFFSET) != keyWidth || header.getInt(VALUE_WIDTH_OFFSET) != valueWidth)
+            throw new IllegalArgumentException(file + " holds " + header.getInt(KEY_WIDTH_OFFSET) + " byte keys and "
+                    + header.getInt(VALUE_WIDTH_OFFSET) + " byte values, the serializers write "
+                    + keyWidth + " and " + valueWidth);
+        capacity = header.getInt(CAPACITY_OFFSET);
+        if (capacity < 2 || Integer.bitCount(capacity) != 1
+                || length != HEADER_SIZE + (long) capacity * slotWidth)
+            throw new IOException(file + " is truncated or corrupt");
+        threshold = Math.min((int) (capacity * LOAD_FACTOR), capacity - 1);
+        table = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, length);
+        currentSize = table.getInt(SIZE_OFFSET);
+    }
+
+    // Writes key into keyBytes and returns the hash of those bytes. The
+    // hash depends only on the bytes, not on hashCode(), so it is the same
+    // in every JVM that opens the file.
+    private int serializeKey(K key) {
+        keyBuffer.clear();
+        keySerializer.write(key, keyBuffer);
+        Arrays.fill(keyBytes, keyBuffer.position(), keyWidth, (byte) 0);
+        int h = 1;
+        for (byte b : keyBytes)
+            h = 31 * h + b;
+        // finish like murmur3 so keys differing in the last byte spread out
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    // Linear probe for the key in keyBytes. Returns the slot holding it,
+    // or -(empty slot + 1) where it would be inserted.
+    private int probe(int hash) {
+        int mask = capacity - 1;
+        int i = hash & mask;
+        int at;
+        while (table.get(at = offset(i)) != EMPTY) {
+            if (table.getInt(at + HASH_OFFSET) == hash) {
+                table.get(at + KEY_OFFSET, slotKeyBytes);
+                if (Arrays.equals(keyBytes, slotKeyBytes))
+                    return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -(i + 1);
+    }
+
+    // Backward shift deletion keeps probe sequences intact without
+    // leaving tombstones in the file
+    private void shiftDelete(int hole) {
+        int mask = capacity - 1;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (table.get(offset(j)) == EMPTY)
+                break;
+            int home = table.getInt(offset(j) + HASH_OFFSET) & mask;
+            // entry at j may fill the hole unless its home lies cyclically in (hole, j]
+            boolean homeBetween = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!homeBetween) {
+                table.get(offset(j), slotBytes);
+                table.put(offset(hole), slotBytes);
+                hole = j;
+            }
+        }
+        table.put(offset(hole), EMPTY);
+    }
+
+    private K readKey(int at) {
+        table.get(at + KEY_OFFSET, slotKeyBytes);
+        slotKeyBuffer.clear();
+        return keySerializer.read(slotKeyBuffer);
+    }
+
+    private V readValue(int at) {
+        if (table.get(at) == NULL_VALUE)
+            return null;
+        table.get(at + KEY_OFFSET + keyWidth, valueBytes);
+        valueBuffer.clear();
+        return valueSerializer.read(valueBuffer);
+    }
+
+    // Keeps the size in the header current, so a reopen needs no count
+    private void setSize(int size) {
+        currentSize = size;
+        table.putInt(SIZE_OFFSET, size);
+    }
+
+    private int offset(int slot) {
+        return HEADER_SIZE + slot * slotWidth;
+    }
+
+    private void checkOpen() {
+        if (table == null)
+            throw new IllegalStateException("MappedHashtable is closed");
+    }
+
+    private void checkWritable() {
+        checkOpen();
+        if (readOnly)
+            throw new UnsupportedOperationException("MappedHashtable is open read only");
+    }
+
+    // Smallest power of two >= n
+    private static int tableSizeFor(int n) {
+        int size = 2;
+        while (size < n)
+            size <<= 1;
+        return size;
+    }
+}
@@ -0,0 +1,425 @@
+ /**
+       *  OpenAddressingHashtable
+       *  Create a Dictionary structure using a hashtable with linear probing
+       *  that keeps keys, values and hashes in parallel arrays and resizes
+       *  incrementally at a configurable load factor
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class OpenAddressingHashtable<K, V> implements DictionaryADT<K, V> {
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    // number of old table slots moved into the new table per put or delete
+    private static final int MIGRATION_STEP = 16;
+    // marks a deleted slot in the old table while it is being migrated
+    private static final Object TOMBSTONE = new Object();
+
+    private Object[] keys, values;
+    private int[] hashes;
+    // table being drained into keys/values/hashes, null when no resize is running
+    private Object[] oldKeys, oldValues;
+    private int[] oldHashes;
+    private int migrateIndex;
+    private int currentSize, threshold;
+    private final float loadFactor;
+    private long modCounter;
+    // value to key index for getKey(), null unless requested in the constructor
+    private ReverseIndex<K, V> reverseIndex;
+
+    public OpenAddressingHashtable() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, false);
+    }
+
+    public OpenAddressingHashtable(int n) {
+        this(n, DEFAULT_LOAD_FACTOR, false);
+    }
+
+    public OpenAddressingHashtable(int n, boolean indexValues) {
+        this(n, DEFAULT_LOAD_FACTOR, indexValues);
+    }
+
+    public OpenAddressingHashtable(int n, float loadFactor) {
+        this(n, loadFactor, false);
+    }
+
+    // n is the number of entries expected, the table is sized so that
+    // n entries fit without resizing. indexValues keeps a value to key
+    // index so getKey() does not scan.
+    public OpenAddressingHashtable(int n, float loadFactor, boolean indexValues) {
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Load factor must be between 0 and 1: " + loadFactor);
+        if (n < 0)
+            throw new IllegalArgumentException("Negative capacity: " + n);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.min(1 << 30, (long) (n / loadFactor) + 1)));
+        currentSize = 0;
+        modCounter = 0;
+        if (indexValues)
+            reverseIndex = new ReverseIndex<K, V>();
+    }
+
+    // Adds the given key/value pair to the dictionary. Returns
+    // false if the dictionary is full, or if the key is a duplicate.
+    // Returns true if addition succeeded.
+    public boolean put(K key, V value) {
+        int hash = hash(key);
+        int slot = probe(keys, hashes, hash, key);
+        if (slot >= 0 || (oldKeys != null && findOld(hash, key) >= 0))
+            return false;
+        if (currentSize >= threshold) {
+            grow();
+            slot = probe(keys, hashes, hash, key);
+        }
+        slot = -(slot + 1);
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        if (reverseIndex != null)
+            reverseIndex.add(key, value);
+        currentSize++;
+        modCounter++;
+        if (oldKeys != null)
+            migrate();
+        return true;
+    }
+
+    // Deletes the key/value pair identified by the key parameter.
+    // Returns true if the key/value pair was found and removed,
+    // otherwise false.
+    public boolean delete(K key) {
+        if (isEmpty())
+            return false;
+        int hash = hash(key);
+        int slot = probe(keys, hashes, hash, key);
+        if (slot >= 0) {
+            if (reverseIndex != null)
+                reverseIndex.remove((K) keys[slot], (V) values[slot]);
+            shiftDelete(slot);
+        }
+        else {
+            if (oldKeys == null || (slot = findOld(hash, key)) < 0)
+                return false;
+            if (reverseIndex != null)
+                reverseIndex.remove((K) oldKeys[slot], (V) oldValues[slot]);
+            // old table entries are never shifted, see findOld()
+            oldKeys[slot] = TOMBSTONE;
+            oldValues[slot] = null;
+        }
+        currentSize--;
+        modCounter++;
+        if (oldKeys != null)
+            migrate();
+        return true;
+    }
+
+    // Returns the value associated with the parameter key. Returns
+    // null if the key is not found or the dictionary is empty.
+    public V get(K key) {
+        if (isEmpty())
+            return null;
+        int hash = hash(key);
+        int slot = probe(keys, hashes, hash, key);
+        if (slot >= 0)
+            return (V) values[slot];
+        if (oldKeys != null && (slot = findOld(hash, key)) >= 0)
+            return (V) oldValues[slot];
+        return null;
+    }
+
+    // Returns the key associated with the parameter value. Returns
+    // null if the value is not found in the dictionary. If more
+    // than one key exists that matches the given value, returns the
+    // first one found.
+    public K getKey(V value) {
+        if (isEmpty())
+            return null;
+        if (reverseIndex != null)
+            return reverseIndex.first(value);
+        K found = scanForValue(keys, values, value);
+        if (found == null && oldKeys != null)
+            found = scanForValue(oldKeys, oldValues, value);
+        return found;
+    }
+
+    // Returns the number of key/value pairs currently stored
+    // in the dictionary
+    public int size() {
+        return currentSize;
+    }
+
+    // Returns true if the dictionary is full
+    public boolean isFull() {
+        return false;
+    }
+
+    // Returns true if the dictionary is empty
+    public boolean isEmpty() {
+        return currentSize == 0;
+    }
+
+    // Makes the dictionary empty, the table keeps its current capacity
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        oldKeys = oldValues = null;
+        oldHashes = null;
+        migrateIndex = 0;
+        currentSize = 0;
+        modCounter++;
+        if (reverseIndex != null)
+            reverseIndex.clear();
+    }
+
+    // Returns an Iterator of the keys in the dictionary, in ascending
+    // sorted order
+    public Iterator<K> keys() {
+        return new KeyIteratorHelper();
+    }
+
+    // Returns an Iterator of the values in the dictionary. The
+    // order of the values must match the order of the keys.
+    public Iterator<V> values() {
+        return new ValueIteratorHelper();
+    }
+
+    // Writes the load factor, whether values are indexed and the pairs in
+    // slot order to out, keys and values at the width of their serializers
+    public void writeSnapshot(WritableByteChannel out, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, OpenAddressingHashtable.class);
+        writer.writeFloat(loadFactor);
+        writer.writeBoolean(reverseIndex != null);
+        writer.writeInt(currentSize);
+        writeSlots(writer, keys, values, keySerializer, valueSerializer);
+        if (oldKeys != null)
+            writeSlots(writer, oldKeys, oldValues, keySerializer, valueSerializer);
+        writer.finish();
+    }
+
+    // Reads a table written by writeSnapshot() into one sized for its
+    // entries, so no resize runs while it loads. Throws IOException if in
+    // does not hold one.
+    public static <K, V> OpenAddressingHashtable<K, V> readSnapshot(ReadableByteChannel in,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, OpenAddressingHashtable.class);
+        float loadFactor = reader.readFloat();
+        boolean indexValues = reader.readBoolean();
+        int size = reader.readCount();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IOException("Corrupt snapshot, load factor " + loadFactor);
+        OpenAddressingHashtable<K, V> table = new OpenAddressingHashtable<K, V>(size, loadFactor, indexValues);
+        for (int i = 0; i < size; i++) {
+            K key = reader.read(keySerializer);
+            V value = reader.readBoolean() ? reader.read(valueSerializer) : null;
+            if (!table.put(key, value))
+                throw new IOException("Corrupt snapshot, duplicate key " + key);
+        }
+        return table;
+    }
+
+    abstract class IteratorHelper<E> implements Iterator<E> {
+        protected Object[] sortedKeys;
+        protected int idx;
+        protected long modCheck;
+
+        public IteratorHelper() {
+            sortedKeys = new Object[currentSize];
+            idx = 0;
+            modCheck = modCounter;
+            int j = copyKeys(keys, sortedKeys, 0);
+            if (oldKeys != null)
+                copyKeys(oldKeys, sortedKeys, j);
+            Arrays.sort(sortedKeys);
+        }
+
+        public boolean hasNext() {
+            if (modCheck != modCounter)
+                throw new ConcurrentModificationException();
+            return idx < sortedKeys.length;
+        }
+
+        public abstract E next();
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    class KeyIteratorHelper extends IteratorHelper<K> {
+        public K next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return (K) sortedKeys[idx++];
+        }
+    }
+
+    // Values are looked up by key as the iterator advances so only
+    // the keys are copied and sorted
+    class ValueIteratorHelper extends IteratorHelper<V> {
+        public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return get((K) sortedKeys[idx++]);
+        }
+    }
+
+    // Spreads the high bits down since the table size is a power of two
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Smallest power of two >= n
+    private static int tableSizeFor(int n) {
+        int size = 2;
+        while (size < n)
+            size <<= 1;
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        // always leave at least one empty slot so probes terminate
+        threshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    // Linear probe of a table with no tombstones. Returns the slot holding
+    // key, or -(empty slot + 1) where key would be inserted.
+    private int probe(Object[] ks, int[] hs, int hash, Object key) {
+        int mask = ks.length - 1;
+        int i = hash & mask;
+        Object k;
+        while ((k = ks[i]) != null) {
+            if (hs[i] == hash && (k == key || ((Comparable<K>) key).compareTo((K) k) == 0))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -(i + 1);
+    }
+
+    // Slots below migrateIndex have already been emptied into the new
+    // table, so the probe skips over that region: it starts at
+    // migrateIndex if the home slot was migrated, and a probe that wraps
+    // past the end resumes at migrateIndex. Old table entries are never
+    // moved, so the unmigrated part of every cluster stays contiguous.
+    private int findOld(int hash, Object key) {
+        int mask = oldKeys.length - 1;
+        int i = Math.max(hash & mask, migrateIndex);
+        boolean wrapped = false;
+        Object k;
+        while ((k = oldKeys[i]) != null) {
+            if (k != TOMBSTONE && oldHashes[i] == hash
+                    && (k == key || ((Comparable<K>) key).compareTo((K) k) == 0))
+                return i;
+            if (++i == oldKeys.length) {
+                if (wrapped)
+                    return -1;
+                wrapped = true;
+                i = migrateIndex;
+            }
+        }
+        return -1;
+    }
+
+    // Backward shift deletion keeps probe sequences intact without
+    // leaving tombstones in the live table
+    private void shiftDelete(int hole) {
+        int mask = keys.length - 1;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null)
+                break;
+            int home = hashes[j] & mask;
+            // entry at j may fill the hole unless its home lies cyclically in (hole, j]
+            boolean homeBetween = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!homeBetween) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hashes[hole] = hashes[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+    }
+
+    // Doubles the table. Entries move over a few slots at a time in
+    // migrate() so no single put pays for the whole copy.
+    private void grow() {
+        if (oldKeys != null)
+            finishMigration();
+        oldKeys = keys;
+        oldValues = values;
+        oldHashes = hashes;
+        migrateIndex = 0;
+        allocate(keys.length << 1);
+    }
+
+    private void migrate() {
+        int end = Math.min(oldKeys.length, migrateIndex + MIGRATION_STEP);
+        migrateRange(end);
+    }
+
+    private void finishMigration() {
+        migrateRange(oldKeys.length);
+    }
+
+    private void migrateRange(int end) {
+        for (int i = migrateIndex; i < end; i++) {
+            Object k = oldKeys[i];
+            if (k != null && k != TOMBSTONE) {
+                int slot = -(probe(keys, hashes, oldHashes[i], k) + 1);
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+                hashes[slot] = oldHashes[i];
+            }
+            oldKeys[i] = null;
+            oldValues[i] = null;
+        }
+        migrateIndex = end;
+        if (migrateIndex == oldKeys.length) {
+            oldKeys = oldValues = null;
+            oldHashes = null;
+            migrateIndex = 0;
+        }
+    }
+
+    private K scanForValue(Object[] ks, Object[] vs, V value) {
+        for (int i = 0; i < ks.length; i++)
+            if (ks[i] != null && ks[i] != TOMBSTONE && ((Comparable<V>) value).compareTo((V) vs[i]) == 0)
+                return (K) ks[i];
+        return null;
+    }
+
+    private void writeSlots(Snapshot.Writer writer, Object[] ks, Object[] vs, Serializer<K> keySerializer,
+            Serializer<V> valueSerializer) throws IOException {
+        for (int i = 0; i < ks.length; i++)
+            if (ks[i] != null && ks[i] != TOMBSTONE) {
+                writer.write(keySerializer, (K) ks[i]);
+                writer.writeBoolean(vs[i] != null);
+                if (vs[i] != null)
+                    writer.write(valueSerializer, (V) vs[i]);
+            }
+    }
+
+    private static int copyKeys(Object[] from, Object[] to, int j) {
+        for (int i = 0; i < from.length; i++)
+            if (from[i] != null && from[i] != TOMBSTONE)
+                to[j++] = from[i];
+        return j;
+    }
+}
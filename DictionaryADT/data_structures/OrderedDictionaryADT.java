@@ -0,0 +1,36 @@
+package data_structures;
+
+import java.util.Iterator;
+import java.util.SortedMap;
+
+// A DictionaryADT kept in key order, so it can also answer questions about
+// neighbouring keys and key ranges without walking every key
+public interface OrderedDictionaryADT<K, V> extends DictionaryADT<K, V> {
+    // Returns the largest key less than or equal to the parameter key.
+    // Returns null if there is no such key.
+    public K floorKey(K key);
+
+    // Returns the smallest key greater than or equal to the parameter key.
+    // Returns null if there is no such key.
+    public K ceilingKey(K key);
+
+    // Returns an Iterator of the keys from fromKey inclusive to toKey
+    // exclusive, in ascending sorted order. Keys are found as the
+    // iterator advances, not copied up front.
+    public Iterator<K> range(K fromKey, K toKey);
+
+    // Returns a read only view of the pairs whose keys are less than
+    // toKey. Later changes to the dictionary show through it.
+    public SortedMap<K, V> headMap(K toKey);
+
+    // Returns a read only view of the pairs whose keys are greater than
+    // or equal to fromKey. Later changes to the dictionary show through it.
+    public SortedMap<K, V> tailMap(K fromKey);
+
+    // Returns the number of keys less than the parameter key
+    public int rank(K key);
+
+    // Returns the key with the given rank, the smallest key being rank 0.
+    // Returns null if rank is negative or not less than size().
+    public K select(int rank);
+}
@@ -0,0 +1,72 @@
+ /**
+       *  ReverseIndex
+       *  Secondary value to key index that the dictionaries keep up to date
+       *  on put and delete so getKey() is O(log n) instead of a full scan.
+       *  Values are ordered with the Comparable Interface, the same
+       *  comparison getKey() uses without the index.
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@SuppressWarnings("unchecked")
+class ReverseIndex<K, V> {
+    // maps a value to its only key, or to a KeySet once several keys share it
+    private TreeMap<V, Object> index;
+
+    public ReverseIndex() {
+        index = new TreeMap<V, Object>();
+    }
+
+    // Records that key now maps to value. Null values are not indexed.
+    public void add(K key, V value) {
+        if (value == null)
+            return;
+        Object keys = index.get(value);
+        if (keys == null)
+            index.put(value, key);
+        else if (keys instanceof KeySet)
+            ((KeySet) keys).add(key);
+        else {
+            KeySet set = new KeySet();
+            set.add(keys);
+            set.add(key);
+            index.put(value, set);
+        }
+    }
+
+    // Forgets that key mapped to value
+    public void remove(K key, V value) {
+        if (value == null)
+            return;
+        Object keys = index.get(value);
+        if (keys instanceof KeySet) {
+            KeySet set = (KeySet) keys;
+            set.remove(key);
+            if (set.size() == 1)
+                index.put(value, set.first());
+        }
+        else if (keys != null && ((Comparable<K>) key).compareTo((K) keys) == 0)
+            index.remove(value);
+    }
+
+    // Returns the smallest key mapped to value, or null if there is none
+    public K first(V value) {
+        if (value == null)
+            return null;
+        Object keys = index.get(value);
+        if (keys instanceof KeySet)
+            return (K) ((KeySet) keys).first();
+        return (K) keys;
+    }
+
+    public void clear() {
+        index.clear();
+    }
+
+    private static class KeySet extends TreeSet<Object> {
+    }
+}
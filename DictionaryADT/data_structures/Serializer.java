@@ -0,0 +1,97 @@
+ /**
+       *  Serializer
+       *  Turns keys and values into a fixed number of bytes and back so
+       *  MappedHashtable can keep them in fixed width slots of a file.
+       *  Built in serializers cover Integer, Long, Double and Strings up
+       *  to a given encoded length.
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public interface Serializer<T> {
+    public static final Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        public void write(Integer object, ByteBuffer buffer) {
+            buffer.putInt(object);
+        }
+
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    public static final Serializer<Long> LONG = new Serializer<Long>() {
+        public int width() {
+            return Long.BYTES;
+        }
+
+        public void write(Long object, ByteBuffer buffer) {
+            buffer.putLong(object);
+        }
+
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    // NaN is always written as the same bits, so every NaN key is one key
+    public static final Serializer<Double> DOUBLE = new Serializer<Double>() {
+        public int width() {
+            return Double.BYTES;
+        }
+
+        public void write(Double object, ByteBuffer buffer) {
+            buffer.putLong(Double.doubleToLongBits(object));
+        }
+
+        public Double read(ByteBuffer buffer) {
+            return Double.longBitsToDouble(buffer.getLong());
+        }
+    };
+
+    // Returns the number of bytes an object takes, the same for every
+    // object
+    public int width();
+
+    // Writes object at the buffer's position, using at most width()
+    // bytes. Equal objects must be written as the same bytes, since
+    // MappedHashtable hashes and compares keys by their bytes.
+    public void write(T object, ByteBuffer buffer);
+
+    // Reads back an object written by write() at the buffer's position
+    public T read(ByteBuffer buffer);
+
+    // Strings of up to maxBytes bytes once encoded as UTF-8, stored after
+    // a two byte length. write() throws IllegalArgumentException for a
+    // longer String.
+    public static Serializer<String> string(int maxBytes) {
+        if (maxBytes < 0 || maxBytes > 0xffff)
+            throw new IllegalArgumentException("String width must be between 0 and 65535: " + maxBytes);
+        return new Serializer<String>() {
+            public int width() {
+                return 2 + maxBytes;
+            }
+
+            public void write(String object, ByteBuffer buffer) {
+                byte[] bytes = object.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > maxBytes)
+                    throw new IllegalArgumentException("String longer than " + maxBytes + " bytes: " + object);
+                buffer.putShort((short) bytes.length);
+                buffer.put(bytes);
+            }
+
+            public String read(ByteBuffer buffer) {
+                byte[] bytes = new byte[buffer.getShort() & 0xffff];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
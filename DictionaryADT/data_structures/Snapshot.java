@@ -0,0 +1,201 @@
+ /**
+       *  Snapshot
+       *  Buffered binary reader and writer over NIO channels shared by the
+       *  writeSnapshot() and readSnapshot() methods of the priority queues
+       *  and dictionaries. A snapshot starts with a magic number and the
+       *  name of the class that wrote it, and objects are written at the
+       *  fixed width of their Serializer.
+       *  October 17th, 2026
+       *  @author  agent
+       */
+package data_structures;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+final class Snapshot {
+    // "DSS1"
+    private static final int MAGIC = 0x44535331;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Snapshot() {
+    }
+
+    static class Writer {
+        private final WritableByteChannel channel;
+        private ByteBuffer buffer;
+
+        // Starts a snapshot of an object of the given class
+        Writer(WritableByteChannel channel, Class<?> type) throws IOException {
+            this.channel = channel;
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] name = type.getName().getBytes(StandardCharsets.UTF_8);
+            writeInt(MAGIC);
+            writeInt(name.length);
+            ensure(name.length);
+            buffer.put(name);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void writeFloat(float value) throws IOException {
+            ensure(Float.BYTES);
+            buffer.putFloat(value);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            ensure(1);
+            buffer.put((byte) (value ? 1 : 0));
+        }
+
+        // Writes object in exactly serializer.width() bytes
+        <T> void write(Serializer<T> serializer, T object) throws IOException {
+            int width = serializer.width();
+            ensure(width);
+            int end = buffer.position() + width;
+            serializer.write(object, buffer);
+            while (buffer.position() < end)
+                buffer.put((byte) 0);
+        }
+
+        // Writes the remaining bytes of src straight to the channel, for
+        // storage that is already laid out as bytes
+        void writeBytes(ByteBuffer src) throws IOException {
+            drain();
+            while (src.hasRemaining())
+                channel.write(src);
+        }
+
+        // Writes out whatever is still buffered. The channel is left open.
+        void finish() throws IOException {
+            drain();
+        }
+
+        // Makes room for n more bytes, growing the buffer for an object
+        // wider than it
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() >= n)
+                return;
+            drain();
+            if (buffer.capacity() < n)
+                buffer = ByteBuffer.allocate(n);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    static class Reader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer;
+
+        // Checks that the snapshot was written by the given class. Throws
+        // IOException if it was not, or is not a snapshot at all. The
+        // snapshot should be the last thing in the channel, see fill().
+        Reader(ReadableByteChannel channel, Class<?> type) throws IOException {
+            this.channel = channel;
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            if (readInt() != MAGIC)
+                throw new IOException("Not a snapshot");
+            int length = readInt();
+            if (length < 0 || length > BUFFER_SIZE)
+                throw new IOException("Not a snapshot");
+            fill(length);
+            byte[] name = new byte[length];
+            buffer.get(name);
+            String found = new String(name, StandardCharsets.UTF_8);
+            if (!found.equals(type.getName()))
+                throw new IOException("Snapshot of " + found + " cannot be read as " + type.getName());
+        }
+
+        int readInt() throws IOException {
+            fill(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            fill(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        float readFloat() throws IOException {
+            fill(Float.BYTES);
+            return buffer.getFloat();
+        }
+
+        boolean readBoolean() throws IOException {
+            fill(1);
+            return buffer.get() != 0;
+        }
+
+        // Reads back an object written by Writer.write()
+        <T> T read(Serializer<T> serializer) throws IOException {
+            int width = serializer.width();
+            fill(width);
+            int end = buffer.position() + width;
+            T object = serializer.read(buffer);
+            buffer.position(end);
+            return object;
+        }
+
+        // Fills the remaining space in dst, buffered bytes first and then
+        // straight from the channel
+        void readBytes(ByteBuffer dst) throws IOException {
+            while (dst.hasRemaining() && buffer.hasRemaining())
+                if (buffer.remaining() <= dst.remaining())
+                    dst.put(buffer);
+                else {
+                    ByteBuffer part = buffer.slice(buffer.position(), dst.remaining());
+                    dst.put(part);
+                    buffer.position(buffer.position() + part.capacity());
+                }
+            while (dst.hasRemaining())
+                if (channel.read(dst) < 0)
+                    throw new EOFException("Snapshot ends early");
+        }
+
+        // Reads a count written with writeInt() and checks it is not negative
+        int readCount() throws IOException {
+            int count = readInt();
+            if (count < 0)
+                throw new IOException("Corrupt snapshot, negative count " + count);
+            return count;
+        }
+
+        // Reads from the channel until n bytes are buffered. Each read takes
+        // as much as the buffer holds, so anything written to the channel
+        // after the snapshot may be consumed with it.
+        private void fill(int n) throws IOException {
+            if (buffer.remaining() >= n)
+                return;
+            if (buffer.capacity() < n) {
+                ByteBuffer larger = ByteBuffer.allocate(n);
+                larger.put(buffer);
+                buffer = larger;
+            }
+            else
+                buffer.compact();
+            while (buffer.position() < n)
+                if (channel.read(buffer) < 0)
+                    throw new EOFException("Snapshot ends early");
+            buffer.flip();
+        }
+    }
+}
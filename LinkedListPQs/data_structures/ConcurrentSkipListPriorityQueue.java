@@ -0,0 +1,186 @@
+/**
+ *  ConcurrentSkipListPriorityQueue
+ *  Implement a thread safe FIFO Priority Queue on a lock free skip list
+ *  from java.util.concurrent. Each object is keyed by its priority and a
+ *  shared sequence number, so equal priorities come out in insertion order
+ *  and remove is a pollFirstEntry that never blocks.
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentSkipListPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    private final ConcurrentSkipListMap<Entry<E>, E> map;
+    // shared by every producer so equal priorities keep insertion order
+    private final AtomicLong entryNumber;
+    // counting the map is O(n), so the size is kept on the side. It can
+    // trail an insert or remove that is still in progress.
+    private final AtomicInteger currentSize;
+
+    public ConcurrentSkipListPriorityQueue() {
+        map = new ConcurrentSkipListMap<Entry<E>, E>();
+        entryNumber = new AtomicLong();
+        currentSize = new AtomicInteger();
+    }
+
+    // Inserts a new object into the priority queue. Returns true if
+    // the insertion is successful. If the PQ is full, the insertion
+    // is aborted, and the method returns false.
+    public boolean insert(E object) {
+        map.put(new Entry<E>(object, entryNumber.getAndIncrement()), object);
+        currentSize.incrementAndGet();
+        return true;
+    }
+
+    // Removes the object of highest priority that has been in the
+    // PQ the longest, and returns it. Returns null if the PQ is empty.
+    public E remove() {
+        Map.Entry<Entry<E>, E> first = map.pollFirstEntry();
+        if (first == null) {
+            return null;
+        }
+        currentSize.decrementAndGet();
+        return first.getValue();
+    }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved. Objects
+    // inserted by other threads meanwhile may land in the batch.
+    public int drainTo(Collection<? super E> c, int max) {
+        int moved = 0;
+        Map.Entry<Entry<E>, E> first;
+        while (moved < max && (first = map.pollFirstEntry()) != null) {
+            c.add(first.getValue());
+            moved++;
+        }
+        currentSize.addAndGet(-moved);
+        return moved;
+    }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), Math.max(currentSize.get(), 0)));
+        drainTo(removed, k);
+        return removed;
+    }
+
+    // Deletes all instances of the parameter obj from the PQ if found, and
+    // returns true. Returns false if no match to the parameter obj is found.
+    public boolean delete(E obj) {
+        ConcurrentNavigableMap<Entry<E>, E> matches = map.subMap(
+                new Entry<E>(obj, Long.MIN_VALUE), true, new Entry<E>(obj, Long.MAX_VALUE), true);
+        int deleted = 0;
+        while (matches.pollFirstEntry() != null) {
+            deleted++;
+        }
+        currentSize.addAndGet(-deleted);
+        return deleted > 0;
+    }
+
+    // Returns the object of highest priority that has been in the
+    // PQ the longest, but does NOT remove it.
+    // Returns null if the PQ is empty.
+    public E peek() {
+        Map.Entry<Entry<E>, E> first = map.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    // Returns true if the priority queue contains the specified element
+    // false otherwise.
+    public boolean contains(E obj) {
+        Entry<E> match = map.ceilingKey(new Entry<E>(obj, Long.MIN_VALUE));
+        return match != null && match.data.compareTo(obj) == 0;
+    }
+
+    // Returns the number of objects currently in the PQ.
+    public int size() { return Math.max(currentSize.get(), 0); }
+
+    // Returns the PQ to an empty state. Objects inserted while this runs
+    // may survive it.
+    public void clear() {
+        int cleared = 0;
+        while (map.pollFirstEntry() != null) {
+            cleared++;
+        }
+        currentSize.addAndGet(-cleared);
+    }
+
+    // Returns true if the PQ is empty, otherwise false
+    public boolean isEmpty() { return map.isEmpty(); }
+
+    // Returns true if the PQ is full, otherwise false. List based
+    // implementations should always return false.
+    public boolean isFull() { return false; }
+
+    // Returns an iterator of the objects in the PQ, in priority order.
+    // It reflects the list at some point during the walk and never throws
+    // ConcurrentModificationException.
+    public Iterator<E> iterator() {
+        return Collections.unmodifiableCollection(map.values()).iterator();
+    }
+
+    // Writes the next sequence number and the objects in priority order,
+    // each with its sequence number, to out. Objects inserted or removed
+    // by other threads while this runs may or may not be in the snapshot.
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        // the count goes first, so write from a copy of the keys
+        Object[] entries = map.keySet().toArray();
+        Snapshot.Writer writer = new Snapshot.Writer(out, ConcurrentSkipListPriorityQueue.class);
+        writer.writeLong(entryNumber.get());
+        writer.writeInt(entries.length);
+        for (Object o : entries) {
+            @SuppressWarnings("unchecked")
+            Entry<E> entry = (Entry<E>) o;
+            writer.write(serializer, entry.data);
+            writer.writeLong(entry.number);
+        }
+        writer.finish();
+    }
+
+    // Reads a PQ written by writeSnapshot(). Keys arrive in ascending order,
+    // so each put lands at the end of the list. Throws IOException if in
+    // does not hold one.
+    public static <E extends Comparable<E>> ConcurrentSkipListPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, ConcurrentSkipListPriorityQueue.class);
+        ConcurrentSkipListPriorityQueue<E> pq = new ConcurrentSkipListPriorityQueue<E>();
+        pq.entryNumber.set(reader.readLong());
+        int size = reader.readCount();
+        for (int i = 0; i < size; i++) {
+            E object = reader.read(serializer);
+            pq.map.put(new Entry<E>(object, reader.readLong()), object);
+        }
+        pq.currentSize.set(size);
+        return pq;
+    }
+
+    private static class Entry<E extends Comparable<E>> implements Comparable<Entry<E>> {
+        final E data;
+        final long number;
+
+        Entry(E data, long number) {
+            this.data = data;
+            this.number = number;
+        }
+
+        public int compareTo(Entry<E> o) {
+            int cmp = data.compareTo(o.data);
+            return cmp != 0 ? cmp : Long.compare(number, o.number);
+        }
+    }
+}
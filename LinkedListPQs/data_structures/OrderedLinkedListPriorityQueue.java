@@ -8,7 +8,14 @@
 
 package data_structures;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.ConcurrentModificationException;
 
@@ -18,18 +25,33 @@ public class OrderedLinkedListPriorityQueue<E extends Comparable<E>> implements
     private Node<E> head;
     private int currentSize;
     private long modificationCounter;
+    // removed nodes kept for reuse, linked through next
+    private Node<E> free;
+    private int freeCount, poolSize;
 
     public OrderedLinkedListPriorityQueue() {
+        this(0);
+    }
+
+    // Pooled PQ, up to poolSize removed nodes are kept and reused by later
+    // inserts, so a queue churning at a steady size allocates nothing
+    public OrderedLinkedListPriorityQueue(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Illegal pool size " + poolSize);
+        }
         head = null;
         currentSize = 0;
         modificationCounter = 0;
+        free = null;
+        freeCount = 0;
+        this.poolSize = poolSize;
     }
 
     // Inserts a new object into the priority queue. Returns true if
     // the insertion is successful. If the PQ is full, the insertion
     // is aborted, and the method returns false.
     public boolean insert(E object) {
-        Node<E> newNode = new Node<E>(object);
+        Node<E> newNode = newNode(object);
         Node<E> prev = null, current = head;
         // traverse until finding correct insertion point
         while (current != null && ((Comparable<E>) object).compareTo(current.data) >= 0) {
@@ -50,6 +72,60 @@ public class OrderedLinkedListPriorityQueue<E extends Comparable<E>> implements
         return true;
     }
 
+    // Inserts every object in iteration order, as if by repeated calls to
+    // insert(), in O(m log m + n) instead of walking the list per object
+    public boolean insertAll(Collection<? extends E> objects) {
+        if (objects.isEmpty()) {
+            return true;
+        }
+        // link the new objects in iteration order, then sort and merge them in
+        Node<E> first = null, last = null;
+        int count = 0;
+        for (E object : objects) {
+            Node<E> newNode = newNode(object);
+            if (first == null) {
+                first = newNode;
+            } else {
+                last.next = newNode;
+            }
+            last = newNode;
+            count++;
+        }
+        head = merge(head, mergeSort(first, count));
+        currentSize += count;
+        modificationCounter++;
+        return true;
+    }
+
+    public boolean insertAll(E[] objects) {
+        return insertAll(Arrays.asList(objects));
+    }
+
+    // Moves every object in other into this PQ and leaves other empty.
+    // Another OrderedLinkedListPriorityQueue is merged node by node in
+    // O(n + m), any other queue is drained. Either way the melded objects
+    // go behind equal ones already here, in the order they had in other.
+    public boolean meld(PriorityQueue<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot meld a queue into itself");
+        }
+        if (!(other instanceof OrderedLinkedListPriorityQueue)) {
+            List<E> drained = new ArrayList<E>(other.size());
+            while (!other.isEmpty()) {
+                drained.add(other.remove());
+            }
+            return insertAll(drained);
+        }
+        OrderedLinkedListPriorityQueue<E> o = (OrderedLinkedListPriorityQueue<E>) other;
+        head = merge(head, o.head);
+        currentSize += o.currentSize;
+        modificationCounter++;
+        // the nodes belong to this list now, so other must not pool them
+        o.head = null;
+        o.clear();
+        return true;
+    }
+
     // Removes the object of highest priority that has been in the
     // PQ the longest, and returns it. Returns null if the PQ is empty.
     public E remove() {
@@ -57,42 +133,74 @@ public class OrderedLinkedListPriorityQueue<E extends Comparable<E>> implements
             return null;
         }
         E remove = head.data;
-        if (head == null) {
-            // list is empty
-            return null;
-        } else {
-            // set head to the next node and return first element (highest priority) to
-            // remove
-            head = head.next;
-        }
+        // set head to the next node and return first element (highest priority) to
+        // remove
+        Node<E> removed = head;
+        head = head.next;
+        recycle(removed);
         currentSize--;
         modificationCounter++;
         return remove;
     }
 
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        if (n == 0) {
+            return 0;
+        }
+        // the list is in priority order, so the batch is the first n nodes
+        for (int i = 0; i < n; i++) {
+            c.add(head.data);
+            Node<E> removed = head;
+            head = head.next;
+            recycle(removed);
+        }
+        currentSize -= n;
+        modificationCounter++;
+        return n;
+    }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
+    }
+
     // Deletes all instances of the parameter obj from the PQ if found, and
     // returns true. Returns false if no match to the parameter obj is found.
     public boolean delete(E obj) {
         if (isEmpty()) {
             return false;
         }
+        int deleted = 0;
         // if the head is to be deleted, set next node to be the head
         while (head != null && ((Comparable<E>) obj).compareTo(head.data) == 0) {
+            Node<E> removed = head;
             head = head.next;
-            currentSize--;
+            recycle(removed);
+            deleted++;
         }
         // if desired element is found, set the current to the node
-        // after the one to be deleted is removed and iterate through, rest is garbage
-        // collected
+        // after the one to be deleted is removed and iterate through, rest is
+        // pooled or garbage collected
         Node<E> current = head;
-        while (current.next != null) {
+        while (current != null && current.next != null) {
             if (((Comparable<E>) obj).compareTo(current.next.data) == 0) {
-                current.next = current.next.next;
-                currentSize--;
+                Node<E> removed = current.next;
+                current.next = removed.next;
+                recycle(removed);
+                deleted++;
             } else {
                 current = current.next;
             }
         }
+        if (deleted == 0) {
+            return false;
+        }
+        currentSize -= deleted;
         modificationCounter++;
         return true;
     }
@@ -132,9 +240,15 @@ public class OrderedLinkedListPriorityQueue<E extends Comparable<E>> implements
 
     // Returns the PQ to an empty state.
     public void clear() {
+        // stop walking once the pool is full, the rest is garbage collected
+        while (head != null && freeCount < poolSize) {
+            Node<E> removed = head;
+            head = head.next;
+            recycle(removed);
+        }
         currentSize = 0;
         head = null;
-        modificationCounter = 0;
+        modificationCounter++;
     }
 
     // Returns true if the PQ is empty, otherwise false
@@ -154,6 +268,110 @@ public class OrderedLinkedListPriorityQueue<E extends Comparable<E>> implements
         return new IteratorHelper();
     }
 
+    // Writes the pool size and the objects in priority order to out. List
+    // order is what keeps equal objects in insertion order.
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, OrderedLinkedListPriorityQueue.class);
+        writer.writeInt(poolSize);
+        writer.writeInt(currentSize);
+        for (Node<E> current = head; current != null; current = current.next) {
+            writer.write(serializer, current.data);
+        }
+        writer.finish();
+    }
+
+    // Reads a PQ written by writeSnapshot() back into a list in the same
+    // order in O(n). Throws IOException if in does not hold one.
+    public static <E extends Comparable<E>> OrderedLinkedListPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, OrderedLinkedListPriorityQueue.class);
+        OrderedLinkedListPriorityQueue<E> pq = new OrderedLinkedListPriorityQueue<E>(reader.readCount());
+        int size = reader.readCount();
+        Node<E> tail = null;
+        for (int i = 0; i < size; i++) {
+            Node<E> node = new Node<E>(reader.read(serializer));
+            if (tail == null) {
+                pq.head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+        pq.currentSize = size;
+        return pq;
+    }
+
+    // Takes a node from the pool, or allocates one if the pool is empty
+    private Node<E> newNode(E data) {
+        if (free == null) {
+            return new Node<E>(data);
+        }
+        Node<E> node = free;
+        free = node.next;
+        freeCount--;
+        node.data = data;
+        node.next = null;
+        return node;
+    }
+
+    // Returns a node that left the list to the pool if there is room
+    private void recycle(Node<E> node) {
+        if (freeCount == poolSize) {
+            return;
+        }
+        node.data = null;
+        node.next = free;
+        free = node;
+        freeCount++;
+    }
+
+    // Stable merge sort of the first count nodes starting at list
+    private Node<E> mergeSort(Node<E> list, int count) {
+        if (count <= 1) {
+            if (list != null) {
+                list.next = null;
+            }
+            return list;
+        }
+        int half = count >> 1;
+        Node<E> middle = list;
+        for (int i = 0; i < half; i++) {
+            middle = middle.next;
+        }
+        // sort the back half first, the front half's walk cuts it off
+        Node<E> back = mergeSort(middle, count - half);
+        return merge(mergeSort(list, half), back);
+    }
+
+    // Merges two sorted lists, taking from a on ties. Every caller passes
+    // the older objects as a, so they stay in front.
+    private Node<E> merge(Node<E> a, Node<E> b) {
+        Node<E> front = null, tail = null;
+        while (a != null && b != null) {
+            Node<E> next;
+            int cmp = ((Comparable<E>) b.data).compareTo(a.data);
+            if (cmp < 0) {
+                next = b;
+                b = b.next;
+            } else {
+                next = a;
+                a = a.next;
+            }
+            if (tail == null) {
+                front = next;
+            } else {
+                tail.next = next;
+            }
+            tail = next;
+        }
+        Node<E> rest = a != null ? a : b;
+        if (tail == null) {
+            return rest;
+        }
+        tail.next = rest;
+        return front;
+    }
+
     class IteratorHelper implements Iterator<E> {
         Node<E> nodePtr;
         private long modCounter = modificationCounter;
@@ -177,7 +395,7 @@ public class OrderedLinkedListPriorityQueue<E extends Comparable<E>> implements
         }
     }
 
-    private class Node<E> {
+    private static class Node<E> {
         E data;
         Node<E> next;
 
@@ -0,0 +1,308 @@
+/**
+ *  SkipListPriorityQueue
+ *  Implement a FIFO Priority Queue as a skip list, a sorted linked list
+ *  where each node also links ahead on a random number of express levels.
+ *  insert and contains drop down the levels in expected O(log n) instead of
+ *  walking the whole list, and peek and remove still take the head in O(1).
+ *  October 17th, 2026
+ *  @author  agent
+ */
+
+package data_structures;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+@SuppressWarnings("unchecked")
+public class SkipListPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
+    // a node rises one more level with probability 1/4, so 32 levels use
+    // up the 64 random bits drawn for it
+    private static final int MAX_LEVEL = 32;
+    private final Node<E> head;
+    // predecessors on each level, filled by every search
+    private final Node<E>[] update;
+    private int level;
+    private int currentSize;
+    private long modificationCounter;
+
+    public SkipListPriorityQueue() {
+        head = new Node<E>(null, MAX_LEVEL);
+        update = new Node[MAX_LEVEL];
+        level = 1;
+        currentSize = 0;
+        modificationCounter = 0;
+    }
+
+    // Inserts a new object into the priority queue. Returns true if
+    // the insertion is successful. If the PQ is full, the insertion
+    // is aborted, and the method returns false.
+    public boolean insert(E object) {
+        // stop after the last node of equal priority, so equal objects
+        // stay in insertion order
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].data.compareTo(object) <= 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int height = randomLevel();
+        for (; level < height; level++) {
+            update[level] = head;
+        }
+        Node<E> newNode = new Node<E>(object, height);
+        for (int i = 0; i < height; i++) {
+            newNode.next[i] = update[i].next[i];
+            update[i].next[i] = newNode;
+        }
+        Arrays.fill(update, 0, level, null);
+        currentSize++;
+        modificationCounter++;
+        return true;
+    }
+
+    // Inserts every object in iteration order, as if by repeated calls to
+    // insert(). The list has no maximum, so this always returns true.
+    public boolean insertAll(Collection<? extends E> objects) {
+        for (E object : objects) {
+            insert(object);
+        }
+        return true;
+    }
+
+    public boolean insertAll(E[] objects) {
+        return insertAll(Arrays.asList(objects));
+    }
+
+    // Removes the object of highest priority that has been in the
+    // PQ the longest, and returns it. Returns null if the PQ is empty.
+    public E remove() {
+        if (isEmpty()) {
+            return null;
+        }
+        E removed = removeFirst();
+        modificationCounter++;
+        return removed;
+    }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        for (int i = 0; i < n; i++) {
+            c.add(removeFirst());
+        }
+        if (n > 0) {
+            modificationCounter++;
+        }
+        return n;
+    }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
+    }
+
+    // Deletes all instances of the parameter obj from the PQ if found, and
+    // returns true. Returns false if no match to the parameter obj is found.
+    public boolean delete(E obj) {
+        if (findPredecessors(obj) == null) {
+            return false;
+        }
+        // the matches form one run, so each level skips its predecessor
+        // past all of them
+        for (int i = 0; i < level; i++) {
+            Node<E> after = update[i].next[i];
+            while (after != null && after.data.compareTo(obj) == 0) {
+                if (i == 0) {
+                    currentSize--;
+                }
+                after = after.next[i];
+            }
+            update[i].next[i] = after;
+        }
+        Arrays.fill(update, 0, level, null);
+        trimLevels();
+        modificationCounter++;
+        return true;
+    }
+
+    // Returns the object of highest priority that has been in the
+    // PQ the longest, but does NOT remove it.
+    // Returns null if the PQ is empty.
+    public E peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return head.next[0].data;
+    }
+
+    // Returns true if the priority queue contains the specified element
+    // false otherwise.
+    public boolean contains(E obj) {
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].data.compareTo(obj) < 0) {
+                x = x.next[i];
+            }
+        }
+        x = x.next[0];
+        return x != null && x.data.compareTo(obj) == 0;
+    }
+
+    // Returns the number of objects currently in the PQ.
+    public int size() {
+        return currentSize;
+    }
+
+    // Returns the PQ to an empty state.
+    public void clear() {
+        Arrays.fill(head.next, null);
+        level = 1;
+        currentSize = 0;
+        modificationCounter++;
+    }
+
+    // Returns true if the PQ is empty, otherwise false
+    public boolean isEmpty() {
+        return head.next[0] == null;
+    }
+
+    // Returns true if the PQ is full, otherwise false. List based
+    // implementations should always return false.
+    public boolean isFull() {
+        return false;
+    }
+
+    // Returns an iterator of the objects in the PQ, in no particular
+    // order.
+    public Iterator<E> iterator() {
+        return new IteratorHelper();
+    }
+
+    // Writes the objects to out in the order they come out. Equal objects
+    // sit in that order already, so their position is all FIFO order needs.
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, SkipListPriorityQueue.class);
+        writer.writeInt(currentSize);
+        for (Node<E> current = head.next[0]; current != null; current = current.next[0]) {
+            writer.write(serializer, current.data);
+        }
+        writer.finish();
+    }
+
+    // Reads a PQ written by writeSnapshot(). The objects arrive sorted, so
+    // each is appended after the last node on every level it gets, O(n)
+    // with no searching. Throws IOException if in does not hold one.
+    public static <E extends Comparable<E>> SkipListPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, SkipListPriorityQueue.class);
+        SkipListPriorityQueue<E> pq = new SkipListPriorityQueue<E>();
+        int size = reader.readCount();
+        // update holds the last node on each level while the list is built
+        Node<E>[] last = pq.update;
+        Arrays.fill(last, pq.head);
+        for (int i = 0; i < size; i++) {
+            Node<E> newNode = new Node<E>(reader.read(serializer), randomLevel());
+            for (int j = 0; j < newNode.next.length; j++) {
+                last[j].next[j] = newNode;
+                last[j] = newNode;
+            }
+            pq.level = Math.max(pq.level, newNode.next.length);
+        }
+        Arrays.fill(last, null);
+        pq.currentSize = size;
+        return pq;
+    }
+
+    // Fills update with the last node before obj on each level and returns
+    // the first node equal to obj, or null if there is none
+    private Node<E> findPredecessors(E obj) {
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].data.compareTo(obj) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || x.data.compareTo(obj) != 0) {
+            Arrays.fill(update, 0, level, null);
+            return null;
+        }
+        return x;
+    }
+
+    // The first node comes first on every level it is on, so taking it
+    // out only touches the head's links
+    private E removeFirst() {
+        Node<E> first = head.next[0];
+        for (int i = 0; i < first.next.length; i++) {
+            head.next[i] = first.next[i];
+        }
+        trimLevels();
+        currentSize--;
+        return first.data;
+    }
+
+    private void trimLevels() {
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    private static int randomLevel() {
+        long bits = ThreadLocalRandom.current().nextLong();
+        int height = 1;
+        while (height < MAX_LEVEL && (bits & 3) == 0) {
+            height++;
+            bits >>>= 2;
+        }
+        return height;
+    }
+
+    class IteratorHelper implements Iterator<E> {
+        Node<E> nodePtr;
+        private long modCounter = modificationCounter;
+
+        public IteratorHelper() {
+            nodePtr = head.next[0];
+        }
+
+        public boolean hasNext() {
+            if (modCounter != modificationCounter)
+                throw new ConcurrentModificationException();
+            return nodePtr != null;
+        }
+
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            E tmp = nodePtr.data;
+            nodePtr = nodePtr.next[0];
+            return tmp;
+        }
+    }
+
+    private static class Node<E> {
+        E data;
+        // next node on each level this node is on
+        Node<E>[] next;
+
+        public Node(E data, int height) {
+            this.data = data;
+            next = new Node[height];
+        }
+    }
+}
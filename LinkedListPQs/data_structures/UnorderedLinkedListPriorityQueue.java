@@ -8,21 +8,53 @@
 
 package data_structures;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.ConcurrentModificationException;
+import java.util.concurrent.ThreadLocalRandom;
 
 @SuppressWarnings("unchecked")
 public class UnorderedLinkedListPriorityQueue<E extends Comparable<E>> implements PriorityQueue<E> {
     public static final int DEFAULT_MAX_CAPACITY = 1000;
+    // the list runs newest first, so of two equal objects the one nearer
+    // the tail has been in the PQ longer
     private Node<E> head;
+    // oldest node, so another list can be spliced in front of this one
+    // in O(1)
+    private Node<E> tail;
+    // node remove() would take next and the node before it, null before
+    // head. min is null when it has to be found again by a scan.
+    private Node<E> min, beforeMin;
     private int currentSize;
     private long modificationCounter;
+    // removed nodes kept for reuse, linked through next
+    private Node<E> free;
+    private int freeCount, poolSize;
 
     public UnorderedLinkedListPriorityQueue() {
-        head = null;
+        this(0);
+    }
+
+    // Pooled PQ, up to poolSize removed nodes are kept and reused by later
+    // inserts, so a queue churning at a steady size allocates nothing
+    public UnorderedLinkedListPriorityQueue(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Illegal pool size " + poolSize);
+        }
+        head = tail = null;
+        min = beforeMin = null;
         currentSize = 0;
         modificationCounter = 0;
+        free = null;
+        freeCount = 0;
+        this.poolSize = poolSize;
     }
 
     // Inserts a new object into the priority queue. Returns true if
@@ -30,73 +62,209 @@ public class UnorderedLinkedListPriorityQueue<E extends Comparable<E>> implement
     // is aborted, and the method returns false.
     public boolean insert(E object) {
         // create new node
-        Node<E> newNode = new Node<E>(object);
+        Node<E> newNode = newNode(object);
         // set the next field of new node to first element of existing list
         newNode.next = head;
         // head pointer gets address of new node
         head = newNode;
+        if (tail == null) {
+            tail = newNode;
+        }
+        // a known minimum only moves if the new node beats it, an equal
+        // new node is newer and stays behind it
+        if (min != null) {
+            if (newNode.data.compareTo(min.data) < 0) {
+                min = newNode;
+                beforeMin = null;
+            } else if (beforeMin == null) {
+                beforeMin = newNode;
+            }
+        }
         // list has been modified, increase times modified
         modificationCounter++;
         currentSize++;
         return true;
     }
 
+    // Moves every object in other into this PQ and leaves other empty.
+    // Another UnorderedLinkedListPriorityQueue's list is spliced onto the
+    // front of this one in O(1) through its tail. Either way the
+    // melded objects go behind equal ones already here, in the order they
+    // had in other.
+    public boolean meld(PriorityQueue<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot meld a queue into itself");
+        }
+        if (!(other instanceof UnorderedLinkedListPriorityQueue)) {
+            while (!other.isEmpty()) {
+                insert(other.remove());
+            }
+            return true;
+        }
+        UnorderedLinkedListPriorityQueue<E> o = (UnorderedLinkedListPriorityQueue<E>) other;
+        if (o.isEmpty()) {
+            return true;
+        }
+        o.tail.next = head;
+        if (tail == null) {
+            tail = o.tail;
+        }
+        head = o.head;
+        min = beforeMin = null;
+        currentSize += o.currentSize;
+        modificationCounter++;
+        // the nodes belong to this list now, so other must not pool them
+        o.head = o.tail = null;
+        o.clear();
+        return true;
+    }
+
     // Removes the object of highest priority that has been in the
     // PQ the longest, and returns it. Returns null if the PQ is empty.
+    // A peek() just before costs nothing extra, remove reuses the node
+    // it found.
     public E remove() {
-        Node<E> current = head;
-        Node<E> previous = null;
-        Node<E> reference = null;
-        Node<E> highestPriority = head;
         if (isEmpty()) {
             return null;
         }
-        // iterate through list until end
-        while (current != null) {
-            // if the node of higher priority is found,
-            // set highest priority to current node
-            if (highestPriority.data.compareTo(current.data) >= 0) {
-                highestPriority = current;
-                reference = previous;
-            }
-            // iterate through list
-            previous = current;
-            current = current.next;
+        if (min == null) {
+            findMin();
         }
+        Node<E> highestPriority = min;
         // in a list with just head node, head is the highest priority
-        if (highestPriority == head) {
+        if (beforeMin == null) {
             head = head.next;
         } else {
-            // if highest priority is not the head, then iterate through list
-            reference.next = highestPriority.next;
+            beforeMin.next = highestPriority.next;
+        }
+        if (highestPriority == tail) {
+            tail = beforeMin;
         }
+        min = beforeMin = null;
+        E removed = highestPriority.data;
+        recycle(highestPriority);
         currentSize--;
         modificationCounter++;
-        return highestPriority.data;
+        return removed;
+    }
+
+    // Removes up to max objects in the order remove() would return them
+    // and adds them to c. Returns the number of objects moved.
+    public int drainTo(Collection<? super E> c, int max) {
+        int n = Math.min(Math.max(max, 0), currentSize);
+        if (n == 0) {
+            return 0;
+        }
+        // one quickselect over a copy finds the nth highest priority
+        // instead of walking the whole list for every object
+        E[] copy = (E[]) new Comparable[currentSize];
+        int i = 0;
+        for (Node<E> current = head; current != null; current = current.next) {
+            copy[i++] = current.data;
+        }
+        E pivot = select(copy, n - 1);
+        int less = 0, equal = 0;
+        for (E data : copy) {
+            int cmp = data.compareTo(pivot);
+            if (cmp < 0) {
+                less++;
+            } else if (cmp == 0) {
+                equal++;
+            }
+        }
+        // the list runs newest first, so the newer objects equal to the
+        // pivot are met first and stay behind
+        int equalsToSkip = equal - (n - less);
+        Node<E>[] taken = new Node[n];
+        int t = n;
+        Node<E> previous = null, current = head;
+        while (current != null) {
+            int cmp = current.data.compareTo(pivot);
+            if (cmp < 0 || (cmp == 0 && equalsToSkip-- <= 0)) {
+                // filled from the back so taken ends up in insertion order
+                taken[--t] = current;
+                if (previous == null) {
+                    head = current.next;
+                } else {
+                    previous.next = current.next;
+                }
+            } else {
+                previous = current;
+            }
+            current = current.next;
+        }
+        tail = previous;
+        // the sort is stable, so equal objects stay in insertion order
+        Arrays.sort(taken, (a, b) -> a.data.compareTo(b.data));
+        for (Node<E> node : taken) {
+            c.add(node.data);
+            recycle(node);
+        }
+        min = beforeMin = null;
+        currentSize -= n;
+        modificationCounter++;
+        return n;
+    }
+
+    // Removes up to k objects and returns them in priority order
+    public List<E> removeMany(int k) {
+        List<E> removed = new ArrayList<E>(Math.min(Math.max(k, 0), currentSize));
+        drainTo(removed, k);
+        return removed;
     }
 
     // Deletes all instances of the parameter obj from the PQ if found, and
     // returns true. Returns false if no match to the parameter obj is found.
+    // A known minimum that survives keeps its place, only the node before
+    // it is looked up again on the way.
     public boolean delete(E obj) {
         if (isEmpty()) {
             return false;
         }
+        // check the cached nodes before they can go back to the pool
+        boolean minDeleted = min != null && min.data.compareTo(obj) == 0;
+        boolean beforeMinDeleted = beforeMin != null && beforeMin.data.compareTo(obj) == 0;
+        int deleted = 0;
         // if the head is to be deleted, set next node to be the head
         while (head != null && ((Comparable<E>) obj).compareTo(head.data) == 0) {
+            Node<E> removed = head;
             head = head.next;
-            currentSize--;
+            recycle(removed);
+            deleted++;
         }
         // if desired element is found, set the current to the node
-        // after the one to be deleted and iterate through, rest is garbage collected
+        // after the one to be deleted and iterate through, rest is pooled
+        // or garbage collected
         Node<E> current = head;
-        while (current.next != null) {
+        while (current != null && current.next != null) {
             if (((Comparable<E>) obj).compareTo(current.next.data) == 0) {
-                current.next = current.next.next;
-                currentSize--;
+                Node<E> removed = current.next;
+                current.next = removed.next;
+                recycle(removed);
+                deleted++;
             } else {
                 current = current.next;
             }
         }
+        if (deleted == 0) {
+            return false;
+        }
+        // the walk stops on the last node left, or null if none are
+        tail = current;
+        if (min != null) {
+            if (minDeleted) {
+                min = beforeMin = null;
+            } else if (min == head) {
+                beforeMin = null;
+            } else if (beforeMinDeleted) {
+                // the old one was deleted, so walk up to min again
+                beforeMin = head;
+                while (beforeMin.next != min) {
+                    beforeMin = beforeMin.next;
+                }
+            }
+        }
+        currentSize -= deleted;
         modificationCounter++;
         return true;
     }
@@ -108,17 +276,12 @@ public class UnorderedLinkedListPriorityQueue<E extends Comparable<E>> implement
         if (isEmpty()) {
             return null;
         }
-        // if current node is a higher or equal priority to the head node,
-        // set the highest priority to the current node and return
-        Node<E> current = head;
-        E hiPriority = head.data;
-        while (current != null) {
-            if ((current.data).compareTo(hiPriority) <= 0) {
-                hiPriority = current.data;
-            }
-            current = current.next;
+        // the scan only runs after the last minimum was removed or
+        // deleted, repeated peeks return the cached node in O(1)
+        if (min == null) {
+            findMin();
         }
-        return hiPriority;
+        return min.data;
     }
 
     // Returns true if the priority queue contains the specified element
@@ -145,9 +308,16 @@ public class UnorderedLinkedListPriorityQueue<E extends Comparable<E>> implement
 
     // Returns the PQ to an empty state.
     public void clear() {
+        // stop walking once the pool is full, the rest is garbage collected
+        while (head != null && freeCount < poolSize) {
+            Node<E> removed = head;
+            head = head.next;
+            recycle(removed);
+        }
         currentSize = 0;
-        head = null;
-        modificationCounter = 0;
+        head = tail = null;
+        min = beforeMin = null;
+        modificationCounter++;
     }
 
     // Returns true if the PQ is empty, otherwise false
@@ -167,6 +337,115 @@ public class UnorderedLinkedListPriorityQueue<E extends Comparable<E>> implement
         return new IteratorHelper();
     }
 
+    // Writes the pool size and the objects in list order to out. List
+    // order is what keeps equal objects in insertion order.
+    public void writeSnapshot(WritableByteChannel out, Serializer<E> serializer) throws IOException {
+        Snapshot.Writer writer = new Snapshot.Writer(out, UnorderedLinkedListPriorityQueue.class);
+        writer.writeInt(poolSize);
+        writer.writeInt(currentSize);
+        for (Node<E> current = head; current != null; current = current.next) {
+            writer.write(serializer, current.data);
+        }
+        writer.finish();
+    }
+
+    // Reads a PQ written by writeSnapshot() back into a list in the same
+    // order in O(n). Throws IOException if in does not hold one.
+    public static <E extends Comparable<E>> UnorderedLinkedListPriorityQueue<E> readSnapshot(
+            ReadableByteChannel in, Serializer<E> serializer) throws IOException {
+        Snapshot.Reader reader = new Snapshot.Reader(in, UnorderedLinkedListPriorityQueue.class);
+        UnorderedLinkedListPriorityQueue<E> pq = new UnorderedLinkedListPriorityQueue<E>(reader.readCount());
+        int size = reader.readCount();
+        Node<E> tail = null;
+        for (int i = 0; i < size; i++) {
+            Node<E> node = new Node<E>(reader.read(serializer));
+            if (tail == null) {
+                pq.head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+        pq.tail = tail;
+        pq.currentSize = size;
+        return pq;
+    }
+
+    // Takes a node from the pool, or allocates one if the pool is empty
+    private Node<E> newNode(E data) {
+        if (free == null) {
+            return new Node<E>(data);
+        }
+        Node<E> node = free;
+        free = node.next;
+        freeCount--;
+        node.data = data;
+        node.next = null;
+        return node;
+    }
+
+    // Returns a node that left the list to the pool if there is room
+    private void recycle(Node<E> node) {
+        if (freeCount == poolSize) {
+            return;
+        }
+        node.data = null;
+        node.next = free;
+        free = node;
+        freeCount++;
+    }
+
+    // Walks the whole list for the node of highest priority that has been
+    // in the PQ the longest and remembers it and the node before it. Ties
+    // go to the later node, which is the older one.
+    private void findMin() {
+        Node<E> previous = null;
+        min = head;
+        beforeMin = null;
+        for (Node<E> current = head; current != null; current = current.next) {
+            if (current.data.compareTo(min.data) <= 0) {
+                min = current;
+                beforeMin = previous;
+            }
+            previous = current;
+        }
+    }
+
+    // Quickselect with a three way partition so runs of equal priorities
+    // don't degrade it, returns the kth smallest object and reorders a
+    private static <T extends Comparable<T>> T select(T[] a, int k) {
+        int lo = 0, hi = a.length - 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lo < hi) {
+            T pivot = a[lo + random.nextInt(hi - lo + 1)];
+            int lt = lo, i = lo, gt = hi;
+            while (i <= gt) {
+                int cmp = a[i].compareTo(pivot);
+                if (cmp < 0) {
+                    swap(a, lt++, i++);
+                } else if (cmp > 0) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                hi = lt - 1;
+            } else if (k > gt) {
+                lo = gt + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return a[k];
+    }
+
+    private static void swap(Object[] a, int i, int j) {
+        Object tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
     class IteratorHelper implements Iterator<E> {
         Node<E> nodePtr;
         private long modCounter = modificationCounter;
@@ -190,7 +469,7 @@ public class UnorderedLinkedListPriorityQueue<E extends Comparable<E>> implement
         }
     }
 
-    private class Node<E> {
+    private static class Node<E extends Comparable<E>> {
         E data;
         Node<E> next;
 